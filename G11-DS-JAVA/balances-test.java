@@ -0,0 +1,89 @@
+// BalancesTest.java
+import org.junit.jupiter.api.*;
+import javax.sql.DataSource;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BalancesTest {
+
+    private static final double DELTA = 1e-9;
+
+    private ComponentA componentA;
+    private ComponentB componentB;
+
+    @BeforeEach
+    public void setUp() {
+        // User 1 (John Doe) starts with 1000.00, user 2 (Jane Doe) with 500.00
+        DataSource dataSource = DatabaseConfig.dataSource();
+        DatabaseConfig.initializeDatabase(dataSource);
+        componentA = new ComponentA(dataSource);
+        componentB = new ComponentB(dataSource);
+    }
+
+    @Test
+    public void testGetBalances() {
+        ComponentB.BalanceMap balances = componentB.getBalances(new int[] {2, 1, 99, 1});
+
+        assertEquals(2, balances.size());
+        assertEquals(1000.00, balances.get(1), DELTA);
+        assertEquals(500.00, balances.get(2), DELTA);
+        assertFalse(balances.containsKey(99));
+        assertEquals(-1.0, balances.getOrDefault(99, -1.0), DELTA);
+        assertThrows(IllegalArgumentException.class, () -> balances.get(99));
+        assertEquals("{1=1000.0, 2=500.0}", balances.toString());
+    }
+
+    @Test
+    public void testGetBalancesAcrossInLists() {
+        // Mostly unknown IDs, so the known users fall into different IN-list chunks
+        int[] userIds = new int[ComponentB.MAX_IN_LIST_SIZE * 2 + 1];
+        for (int i = 0; i < userIds.length; i++) {
+            userIds[i] = 1000 + i;
+        }
+        userIds[0] = 1;
+        userIds[userIds.length - 1] = 2;
+
+        ComponentB.BalanceMap balances = componentB.getBalances(userIds);
+
+        assertEquals(2, balances.size());
+        assertEquals(1000.00, balances.get(1), DELTA);
+        assertEquals(500.00, balances.get(2), DELTA);
+        assertEquals(0, componentB.getBalances(new int[0]).size());
+    }
+
+    @Test
+    public void testVerifyBalances() {
+        componentA.processPayment(1, 100.00);
+
+        boolean[] matches = componentB.verifyBalances(new int[] {1, 2, 2, 99},
+                new double[] {900.00, 500.00, 400.00, 0.00});
+
+        assertArrayEquals(new boolean[] {true, true, false, false}, matches);
+        assertTrue(componentB.verifyBalance(1, 900.00));
+    }
+
+    @Test
+    public void testVerifyBalancesRejectsMismatchedLengths() {
+        assertThrows(IllegalArgumentException.class,
+                () -> componentB.verifyBalances(new int[] {1, 2}, new double[] {1000.00}));
+    }
+
+    @Test
+    public void testBalanceMapGrows() {
+        ComponentB.BalanceMap balances = new ComponentB.BalanceMap(1);
+        for (int id = 0; id < 10_000; id++) {
+            balances.put(id * 31, id);
+        }
+        balances.put(31, -1.0);
+
+        assertEquals(10_000, balances.size());
+        assertEquals(-1.0, balances.get(31), DELTA);
+        assertEquals(9_999.0, balances.get(9_999 * 31), DELTA);
+        assertFalse(balances.containsKey(32));
+        int[] ids = balances.userIds();
+        Arrays.sort(ids);
+        assertEquals(10_000, ids.length);
+        assertEquals(9_999 * 31, ids[ids.length - 1]);
+    }
+}
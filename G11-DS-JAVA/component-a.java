@@ -1,13 +1,45 @@
 // ComponentA.java
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class ComponentA {
 
+    public static final int DEFAULT_USERS_PER_TRANSACTION = 500;
+
+    private static final String DEBIT_SQL = "UPDATE users SET balance = balance - ? WHERE id = ? AND balance >= ?";
+    private static final String LOCK_BALANCE_SQL = "SELECT balance FROM users WHERE id = ? FOR UPDATE";
+
     private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private int usersPerTransaction = DEFAULT_USERS_PER_TRANSACTION;
 
     public ComponentA(DataSource dataSource) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Sets how many users' netted payments are applied per JDBC batch and transaction.
+     *
+     * @param usersPerTransaction The number of users per transaction, must be positive.
+     */
+    public void setUsersPerTransaction(int usersPerTransaction) {
+        if (usersPerTransaction <= 0) {
+            throw new IllegalArgumentException("Users per transaction must be positive");
+        }
+        this.usersPerTransaction = usersPerTransaction;
     }
 
     /**
@@ -30,4 +62,270 @@ public class ComponentA {
         String updateBalanceSql = "UPDATE users SET balance = balance - ? WHERE id = ?";
         jdbcTemplate.update(updateBalanceSql, amount, userId);
     }
-}
\ No newline at end of file
+
+    /**
+     * Processes a payment transaction with a single conditional UPDATE, so the balance
+     * check and the deduction happen atomically in one round trip. Concurrent payments
+     * cannot both pass the check because the database evaluates it against the row it updates.
+     *
+     * @param userId The ID of the user.
+     * @param amount The payment amount.
+     * @throws IllegalArgumentException If the user does not have sufficient balance.
+     * @throws EmptyResultDataAccessException If the user does not exist.
+     */
+    public void processPaymentAtomic(int userId, double amount) {
+        if (jdbcTemplate.update(DEBIT_SQL, amount, userId, amount) == 1) {
+            return;
+        }
+
+        // Nothing was updated: tell a missing user apart from an insufficient balance
+        String existsSql = "SELECT COUNT(*) FROM users WHERE id = ?";
+        Integer count = jdbcTemplate.queryForObject(existsSql, Integer.class, userId);
+        if (count == null || count == 0) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        throw new IllegalArgumentException("Insufficient balance");
+    }
+
+    /**
+     * Processes many payments, with the same outcome as calling {@link #processPaymentAtomic}
+     * for each payment in order. Payments are grouped and netted per user, and the netted
+     * debits are applied with one conditional UPDATE per user sent as a JDBC batch, in
+     * transactions of at most {@code usersPerTransaction} users.
+     * <p>
+     * When a user's netted total exceeds the balance, that user's payments are decided one
+     * by one in input order against the balance read and locked inside the transaction, so
+     * each payment still succeeds or fails individually. A transaction that fails with a
+     * database error is rolled back and its payments are reported as {@link PaymentStatus#FAILED}.
+     * <p>
+     * If the JDBC driver does not report per-statement update counts for batches (for
+     * example MySQL with {@code rewriteBatchedStatements}), the transaction is rolled back
+     * and it and the remaining transactions are applied with one UPDATE per user instead.
+     *
+     * @param payments The payments to apply; amounts must not be negative.
+     * @return The status of every payment, in input order, and throughput figures.
+     */
+    public PaymentBatchResult processPayments(List<Payment> payments) {
+        Map<Integer, List<Integer>> paymentsByUser = new LinkedHashMap<>();
+        for (int i = 0; i < payments.size(); i++) {
+            Payment payment = payments.get(i);
+            if (payment.getAmount() < 0) {
+                throw new IllegalArgumentException("Payment amount must not be negative: " + payment.getAmount());
+            }
+            paymentsByUser.computeIfAbsent(payment.getUserId(), id -> new ArrayList<>()).add(i);
+        }
+
+        PaymentStatus[] statuses = new PaymentStatus[payments.size()];
+        List<DataAccessException> failures = new ArrayList<>();
+        List<Map.Entry<Integer, List<Integer>>> users = new ArrayList<>(paymentsByUser.entrySet());
+        long start = System.nanoTime();
+        boolean batched = true;
+        for (int from = 0; from < users.size(); from += usersPerTransaction) {
+            List<Map.Entry<Integer, List<Integer>>> chunk =
+                    users.subList(from, Math.min(from + usersPerTransaction, users.size()));
+            try {
+                try {
+                    applyChunkInTransaction(chunk, payments, statuses, batched);
+                } catch (UpdateCountsUnavailableException e) {
+                    // The batch was rolled back; the driver only reports counts for single statements
+                    batched = false;
+                    applyChunkInTransaction(chunk, payments, statuses, false);
+                }
+            } catch (DataAccessException e) {
+                failures.add(e);
+                for (Map.Entry<Integer, List<Integer>> user : chunk) {
+                    for (int index : user.getValue()) {
+                        statuses[index] = PaymentStatus.FAILED;
+                    }
+                }
+            }
+        }
+        return new PaymentBatchResult(statuses, failures, users.size(), System.nanoTime() - start);
+    }
+
+    private void applyChunkInTransaction(List<Map.Entry<Integer, List<Integer>>> chunk, List<Payment> payments,
+                                         PaymentStatus[] statuses, boolean batched) {
+        transactionTemplate.execute(status -> {
+            if (batched) {
+                applyChunk(chunk, payments, statuses);
+            } else {
+                applyChunkPerUser(chunk, payments, statuses);
+            }
+            return null;
+        });
+    }
+
+    private void applyChunk(List<Map.Entry<Integer, List<Integer>>> chunk, List<Payment> payments,
+                            PaymentStatus[] statuses) {
+        List<Object[]> args = new ArrayList<>(chunk.size());
+        for (Map.Entry<Integer, List<Integer>> user : chunk) {
+            double total = 0;
+            for (int index : user.getValue()) {
+                total += payments.get(index).getAmount();
+            }
+            args.add(new Object[] {total, user.getKey(), total});
+        }
+
+        int[] counts = jdbcTemplate.batchUpdate(DEBIT_SQL, args);
+        for (int i = 0; i < counts.length; i++) {
+            List<Integer> indexes = chunk.get(i).getValue();
+            if (counts[i] == 1) {
+                for (int index : indexes) {
+                    statuses[index] = PaymentStatus.APPLIED;
+                }
+            } else if (counts[i] == 0) {
+                applyIndividually(chunk.get(i).getKey(), indexes, payments, statuses);
+            } else {
+                // Without a real update count we cannot tell which debits were applied
+                throw new UpdateCountsUnavailableException();
+            }
+        }
+    }
+
+    private void applyChunkPerUser(List<Map.Entry<Integer, List<Integer>>> chunk, List<Payment> payments,
+                                   PaymentStatus[] statuses) {
+        for (Map.Entry<Integer, List<Integer>> user : chunk) {
+            double total = 0;
+            for (int index : user.getValue()) {
+                total += payments.get(index).getAmount();
+            }
+            if (jdbcTemplate.update(DEBIT_SQL, total, user.getKey(), total) == 1) {
+                for (int index : user.getValue()) {
+                    statuses[index] = PaymentStatus.APPLIED;
+                }
+            } else {
+                applyIndividually(user.getKey(), user.getValue(), payments, statuses);
+            }
+        }
+    }
+
+    private void applyIndividually(int userId, List<Integer> indexes, List<Payment> payments,
+                                   PaymentStatus[] statuses) {
+        // Lock the row so the balance cannot change between deciding and debiting
+        List<Double> balances = jdbcTemplate.queryForList(LOCK_BALANCE_SQL, Double.class, userId);
+        if (balances.isEmpty()) {
+            for (int index : indexes) {
+                statuses[index] = PaymentStatus.USER_NOT_FOUND;
+            }
+            return;
+        }
+
+        double remaining = balances.get(0);
+        double accepted = 0;
+        for (int index : indexes) {
+            double amount = payments.get(index).getAmount();
+            if (remaining >= amount) {
+                remaining -= amount;
+                accepted += amount;
+                statuses[index] = PaymentStatus.APPLIED;
+            } else {
+                statuses[index] = PaymentStatus.INSUFFICIENT_BALANCE;
+            }
+        }
+        if (accepted > 0) {
+            int updated = jdbcTemplate.update(DEBIT_SQL, accepted, userId, accepted);
+            if (updated != 1) {
+                // Cannot happen while the row is locked; roll back rather than report wrong statuses
+                throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(DEBIT_SQL, 1, updated);
+            }
+        }
+    }
+
+    /**
+     * Rolls back a batch whose update counts the driver did not report.
+     */
+    private static final class UpdateCountsUnavailableException extends RuntimeException {
+
+        UpdateCountsUnavailableException() {
+            super("JDBC driver did not report update counts for the payment batch");
+        }
+    }
+
+    /**
+     * A payment of {@code amount} by the user with ID {@code userId}.
+     */
+    public static final class Payment {
+
+        private final int userId;
+        private final double amount;
+
+        public Payment(int userId, double amount) {
+            this.userId = userId;
+            this.amount = amount;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+    }
+
+    /**
+     * Outcome of a single payment in a batch.
+     */
+    public enum PaymentStatus {
+        APPLIED,
+        INSUFFICIENT_BALANCE,
+        USER_NOT_FOUND,
+        /** The payment's transaction was rolled back by a database error. */
+        FAILED
+    }
+
+    /**
+     * Per-payment outcome and throughput of a {@link #processPayments} run.
+     */
+    public static final class PaymentBatchResult {
+
+        private final PaymentStatus[] statuses;
+        private final List<DataAccessException> failures;
+        private final int users;
+        private final long elapsedNanos;
+
+        PaymentBatchResult(PaymentStatus[] statuses, List<DataAccessException> failures, int users, long elapsedNanos) {
+            this.statuses = statuses;
+            this.failures = Collections.unmodifiableList(failures);
+            this.users = users;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /** The status of the payment at {@code index} in the input list. */
+        public PaymentStatus getStatus(int index) {
+            return statuses[index];
+        }
+
+        public List<PaymentStatus> getStatuses() {
+            return Collections.unmodifiableList(Arrays.asList(statuses));
+        }
+
+        public int count(PaymentStatus status) {
+            int count = 0;
+            for (PaymentStatus s : statuses) {
+                if (s == status) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /** Exceptions of the transactions that were rolled back. */
+        public List<DataAccessException> getFailures() {
+            return failures;
+        }
+
+        /** Number of distinct users the payments were netted into. */
+        public int getUsers() {
+            return users;
+        }
+
+        public long getElapsed(TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public double getPaymentsPerSecond() {
+            return elapsedNanos == 0 ? 0 : statuses.length * 1e9 / elapsedNanos;
+        }
+    }
+}
@@ -1,9 +1,14 @@
 // ComponentB.java
 import org.springframework.jdbc.core.JdbcTemplate;
 import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Collections;
 
 public class ComponentB {
 
+    // Upper bound on bind parameters per IN-list, below common database limits
+    public static final int MAX_IN_LIST_SIZE = 1000;
+
     private JdbcTemplate jdbcTemplate;
 
     public ComponentB(DataSource dataSource) {
@@ -32,4 +37,154 @@ public class ComponentB {
         double actualBalance = getUserBalance(userId);
         return actualBalance == expectedBalance;
     }
-}
\ No newline at end of file
+
+    /**
+     * Fetches the balances of many users with one IN query per {@link #MAX_IN_LIST_SIZE} IDs.
+     *
+     * @param userIds The IDs of the users.
+     * @return The balances keyed by user ID; users that do not exist are absent.
+     */
+    public BalanceMap getBalances(int[] userIds) {
+        BalanceMap balances = new BalanceMap(userIds.length);
+        for (int from = 0; from < userIds.length; from += MAX_IN_LIST_SIZE) {
+            int start = from;
+            int count = Math.min(MAX_IN_LIST_SIZE, userIds.length - from);
+            String sql = "SELECT id, balance FROM users WHERE id IN ("
+                    + String.join(", ", Collections.nCopies(count, "?")) + ")";
+            jdbcTemplate.query(sql, ps -> {
+                for (int i = 0; i < count; i++) {
+                    ps.setInt(i + 1, userIds[start + i]);
+                }
+            }, rs -> balances.put(rs.getInt(1), rs.getDouble(2)));
+        }
+        return balances;
+    }
+
+    /**
+     * Verifies many balances at once, see {@link #verifyBalance(int, double)}.
+     *
+     * @param userIds          The IDs of the users.
+     * @param expectedBalances The expected balance of each user, aligned with {@code userIds}.
+     * @return For each user, true if the balance matches; false if it differs or the user does not exist.
+     */
+    public boolean[] verifyBalances(int[] userIds, double[] expectedBalances) {
+        if (userIds.length != expectedBalances.length) {
+            throw new IllegalArgumentException("userIds and expectedBalances must have the same length");
+        }
+        BalanceMap balances = getBalances(userIds);
+        boolean[] matches = new boolean[userIds.length];
+        for (int i = 0; i < userIds.length; i++) {
+            matches[i] = balances.containsKey(userIds[i]) && balances.get(userIds[i]) == expectedBalances[i];
+        }
+        return matches;
+    }
+
+    /**
+     * Open-addressing map from user ID to balance that stores primitives only,
+     * so bulk reads of millions of balances do not box keys or values.
+     */
+    public static final class BalanceMap {
+
+        private int[] keys;
+        private double[] values;
+        private boolean[] used;
+        private int size;
+
+        BalanceMap(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+            keys = new int[capacity];
+            values = new double[capacity];
+            used = new boolean[capacity];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean containsKey(int userId) {
+            return used[indexOf(userId)];
+        }
+
+        /**
+         * @throws IllegalArgumentException If there is no balance for this user.
+         */
+        public double get(int userId) {
+            int index = indexOf(userId);
+            if (!used[index]) {
+                throw new IllegalArgumentException("No balance for user " + userId);
+            }
+            return values[index];
+        }
+
+        public double getOrDefault(int userId, double defaultValue) {
+            int index = indexOf(userId);
+            return used[index] ? values[index] : defaultValue;
+        }
+
+        /** The user IDs in the map, in no particular order. */
+        public int[] userIds() {
+            int[] ids = new int[size];
+            int n = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (used[i]) {
+                    ids[n++] = keys[i];
+                }
+            }
+            return ids;
+        }
+
+        void put(int userId, double balance) {
+            int index = indexOf(userId);
+            if (!used[index]) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                    index = indexOf(userId);
+                }
+                used[index] = true;
+                keys[index] = userId;
+                size++;
+            }
+            values[index] = balance;
+        }
+
+        // Slot holding userId, or the empty slot where it would be inserted
+        private int indexOf(int userId) {
+            int mask = keys.length - 1;
+            int h = userId * 0x9E3779B9;
+            int index = (h ^ (h >>> 16)) & mask;
+            while (used[index] && keys[index] != userId) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            double[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new int[oldKeys.length * 2];
+            values = new double[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            int[] ids = userIds();
+            Arrays.sort(ids);
+            StringBuilder sb = new StringBuilder("{");
+            for (int id : ids) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(id).append('=').append(get(id));
+            }
+            return sb.append('}').toString();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+// PaymentsTest.java
+import org.junit.jupiter.api.*;
+import org.springframework.dao.EmptyResultDataAccessException;
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentsTest {
+
+    private static final double DELTA = 1e-9;
+
+    private DataSource dataSource;
+    private ComponentA componentA;
+    private ComponentB componentB;
+
+    @BeforeEach
+    public void setUp() {
+        // User 1 (John Doe) starts with 1000.00, user 2 (Jane Doe) with 500.00
+        dataSource = DatabaseConfig.dataSource();
+        DatabaseConfig.initializeDatabase(dataSource);
+        componentA = new ComponentA(dataSource);
+        componentB = new ComponentB(dataSource);
+    }
+
+    @Test
+    public void testPaymentsAreNettedPerUser() {
+        ComponentA.PaymentBatchResult result = componentA.processPayments(Arrays.asList(
+                new ComponentA.Payment(1, 100.00),
+                new ComponentA.Payment(2, 50.00),
+                new ComponentA.Payment(1, 200.00),
+                new ComponentA.Payment(1, 300.00)));
+
+        assertEquals(4, result.count(ComponentA.PaymentStatus.APPLIED));
+        assertEquals(2, result.getUsers());
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(400.00, componentB.getUserBalance(1), DELTA);
+        assertEquals(450.00, componentB.getUserBalance(2), DELTA);
+    }
+
+    @Test
+    public void testInsufficientBalanceIsDecidedPerPaymentInOrder() {
+        // The netted 750.00 exceeds the balance, so each payment is decided in input order
+        ComponentA.PaymentBatchResult result = componentA.processPayments(Arrays.asList(
+                new ComponentA.Payment(2, 300.00),
+                new ComponentA.Payment(2, 300.00),
+                new ComponentA.Payment(2, 150.00)));
+
+        assertEquals(Arrays.asList(ComponentA.PaymentStatus.APPLIED, ComponentA.PaymentStatus.INSUFFICIENT_BALANCE,
+                ComponentA.PaymentStatus.APPLIED), result.getStatuses());
+        assertEquals(50.00, componentB.getUserBalance(2), DELTA);
+    }
+
+    @Test
+    public void testInsufficientBalanceLeavesOtherUsersApplied() {
+        ComponentA.PaymentBatchResult result = componentA.processPayments(Arrays.asList(
+                new ComponentA.Payment(1, 200.00),
+                new ComponentA.Payment(2, 600.00)));
+
+        assertEquals(ComponentA.PaymentStatus.APPLIED, result.getStatus(0));
+        assertEquals(ComponentA.PaymentStatus.INSUFFICIENT_BALANCE, result.getStatus(1));
+        assertTrue(componentB.verifyBalance(1, 800.00));
+        assertTrue(componentB.verifyBalance(2, 500.00));
+    }
+
+    @Test
+    public void testUnknownUserIsReportedNotFound() {
+        ComponentA.PaymentBatchResult result = componentA.processPayments(Arrays.asList(
+                new ComponentA.Payment(999, 10.00),
+                new ComponentA.Payment(1, 10.00),
+                new ComponentA.Payment(999, 20.00)));
+
+        assertEquals(Arrays.asList(ComponentA.PaymentStatus.USER_NOT_FOUND, ComponentA.PaymentStatus.APPLIED,
+                ComponentA.PaymentStatus.USER_NOT_FOUND), result.getStatuses());
+        assertEquals(990.00, componentB.getUserBalance(1), DELTA);
+    }
+
+    @Test
+    public void testMatchesSinglePaymentsAcrossTransactions() {
+        List<ComponentA.Payment> payments = Arrays.asList(
+                new ComponentA.Payment(2, 400.00),
+                new ComponentA.Payment(1, 999.00),
+                new ComponentA.Payment(999, 1.00),
+                new ComponentA.Payment(2, 200.00),
+                new ComponentA.Payment(1, 1.00),
+                new ComponentA.Payment(1, 0.50));
+        componentA.setUsersPerTransaction(1);
+
+        ComponentA.PaymentBatchResult result = componentA.processPayments(payments);
+
+        // processPaymentAtomic applied one by one would give the same outcome
+        assertEquals(Arrays.asList(ComponentA.PaymentStatus.APPLIED, ComponentA.PaymentStatus.APPLIED,
+                ComponentA.PaymentStatus.USER_NOT_FOUND, ComponentA.PaymentStatus.INSUFFICIENT_BALANCE,
+                ComponentA.PaymentStatus.APPLIED, ComponentA.PaymentStatus.INSUFFICIENT_BALANCE),
+                result.getStatuses());
+        assertEquals(0.00, componentB.getUserBalance(1), DELTA);
+        assertEquals(100.00, componentB.getUserBalance(2), DELTA);
+    }
+
+    @Test
+    public void testNegativeAmountIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> componentA.processPayments(Arrays.asList(
+                new ComponentA.Payment(1, 10.00),
+                new ComponentA.Payment(2, -10.00))));
+        assertTrue(componentB.verifyBalance(1, 1000.00), "No payment may be applied when the input is invalid");
+    }
+
+    @Test
+    public void testEmptyBatch() {
+        ComponentA.PaymentBatchResult result = componentA.processPayments(Collections.emptyList());
+
+        assertTrue(result.getStatuses().isEmpty());
+        assertEquals(0, result.getUsers());
+    }
+
+    @Test
+    public void testAtomicPayment() {
+        componentA.processPaymentAtomic(2, 500.00);
+        assertTrue(componentB.verifyBalance(2, 0.00));
+
+        assertThrows(IllegalArgumentException.class, () -> componentA.processPaymentAtomic(2, 0.01));
+        assertThrows(EmptyResultDataAccessException.class, () -> componentA.processPaymentAtomic(999, 1.00));
+    }
+}
@@ -0,0 +1,141 @@
+// CachingComponentB.java
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachingComponentB {
+
+    private final ComponentB delegate;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Entry> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Bumped on every invalidation so a load that raced with a write is not cached
+    private long generation;
+
+    /**
+     * Creates a read-through cache in front of a {@link ComponentB}.
+     *
+     * @param delegate   The component that performs the database lookups.
+     * @param maxEntries The maximum number of cached users; least recently used entries are evicted first.
+     * @param ttl        How long a cached user stays valid.
+     * @param unit       The unit of {@code ttl}.
+     */
+    public CachingComponentB(ComponentB delegate, int maxEntries, long ttl, TimeUnit unit) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > CachingComponentB.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Creates a cache that is invalidated whenever {@code writer} inserts a user.
+     */
+    public CachingComponentB(ComponentB delegate, ComponentA writer, int maxEntries, long ttl, TimeUnit unit) {
+        this(delegate, maxEntries, ttl, unit);
+        writer.addWriteListener(this::invalidate);
+    }
+
+    /**
+     * Retrieves a user by email, serving it from the cache when a fresh entry exists.
+     *
+     * @param email The email of the user to retrieve.
+     * @return An unmodifiable map containing the user's data.
+     */
+    public Map<String, Object> getUserByEmail(String email) {
+        long now = System.nanoTime();
+        long loadGeneration;
+        synchronized (cache) {
+            Entry entry = cache.get(email);
+            if (entry != null) {
+                if (now - entry.loadedAt < ttlNanos) {
+                    hits.incrementAndGet();
+                    return entry.user;
+                }
+                cache.remove(email);
+                evictions.incrementAndGet();
+            }
+            loadGeneration = generation;
+        }
+        misses.incrementAndGet();
+
+        // Query outside the lock so a slow lookup does not block hits on other emails
+        Map<String, Object> user = Collections.unmodifiableMap(delegate.getUserByEmail(email));
+        synchronized (cache) {
+            if (generation == loadGeneration) {
+                cache.put(email, new Entry(user, now));
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Drops the cached entry for an email, typically because the user was written.
+     *
+     * @param email The email whose entry should be discarded.
+     */
+    public void invalidate(String email) {
+        synchronized (cache) {
+            generation++;
+            cache.remove(email);
+        }
+    }
+
+    /**
+     * Drops every cached entry.
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            generation++;
+            cache.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /** Entries removed because the cache was full or their TTL had expired. */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private static final class Entry {
+
+        final Map<String, Object> user;
+        final long loadedAt;
+
+        Entry(Map<String, Object> user, long loadedAt) {
+            this.user = user;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -1,13 +1,56 @@
 // ComponentA.java
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class ComponentA {
 
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String INSERT_USER_SQL = "INSERT INTO users (name, email) VALUES (?, ?)";
+
     private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private final List<Consumer<String>> writeListeners = new CopyOnWriteArrayList<>();
 
     public ComponentA(DataSource dataSource) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Sets the number of users sent per JDBC batch and committed per transaction.
+     *
+     * @param batchSize The chunk size, must be positive.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Registers a callback that receives the email of every user written by this component,
+     * after the write has been committed. Used to keep caches such as
+     * {@link CachingComponentB} consistent.
+     *
+     * @param listener The callback to invoke with each written email.
+     */
+    public void addWriteListener(Consumer<String> listener) {
+        writeListeners.add(listener);
     }
 
     /**
@@ -17,7 +60,130 @@ public class ComponentA {
      * @param email The email of the user.
      */
     public void insertUser(String name, String email) {
-        String sql = "INSERT INTO users (name, email) VALUES (?, ?)";
-        jdbcTemplate.update(sql, name, email);
+        jdbcTemplate.update(INSERT_USER_SQL, name, email);
+        fireWritten(email);
+    }
+
+    /**
+     * Inserts users in chunks of {@code batchSize}, each chunk sent as one JDBC batch
+     * and committed in its own transaction. A failing chunk is rolled back and reported,
+     * and the remaining chunks are still inserted.
+     *
+     * @param users The users to insert.
+     * @return One result per chunk, in input order.
+     */
+    public List<ChunkResult> insertUsers(Iterable<User> users) {
+        return insertUsers(users.iterator());
+    }
+
+    /**
+     * Inserts users from a stream in chunks, see {@link #insertUsers(Iterable)}.
+     * The stream is consumed lazily and closed when done.
+     *
+     * @param users The users to insert.
+     * @return One result per chunk, in input order.
+     */
+    public List<ChunkResult> insertUsers(Stream<User> users) {
+        try (Stream<User> stream = users) {
+            return insertUsers(stream.iterator());
+        }
+    }
+
+    private List<ChunkResult> insertUsers(Iterator<User> users) {
+        List<ChunkResult> results = new ArrayList<>();
+        List<User> chunk = new ArrayList<>(batchSize);
+        long offset = 0;
+        while (users.hasNext()) {
+            chunk.add(users.next());
+            if (chunk.size() == batchSize) {
+                results.add(insertChunk(offset, chunk));
+                offset += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.add(insertChunk(offset, chunk));
+        }
+        return results;
+    }
+
+    private ChunkResult insertChunk(long offset, List<User> chunk) {
+        try {
+            int[] counts = transactionTemplate.execute(status ->
+                    jdbcTemplate.batchUpdate(INSERT_USER_SQL, new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            User user = chunk.get(i);
+                            ps.setString(1, user.getName());
+                            ps.setString(2, user.getEmail());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    }));
+            for (User user : chunk) {
+                fireWritten(user.getEmail());
+            }
+            return new ChunkResult(offset, chunk.size(), sum(counts), null);
+        } catch (DataAccessException e) {
+            return new ChunkResult(offset, chunk.size(), 0, e);
+        }
+    }
+
+    private void fireWritten(String email) {
+        for (Consumer<String> listener : writeListeners) {
+            listener.accept(email);
+        }
+    }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            // Drivers may report SUCCESS_NO_INFO (-2) instead of a row count
+            total += count > 0 ? count : 0;
+        }
+        return total;
+    }
+
+    /**
+     * Outcome of one committed (or rolled back) chunk of a bulk insert.
+     */
+    public static final class ChunkResult {
+
+        private final long offset;
+        private final int size;
+        private final int rowsAffected;
+        private final DataAccessException failure;
+
+        ChunkResult(long offset, int size, int rowsAffected, DataAccessException failure) {
+            this.offset = offset;
+            this.size = size;
+            this.rowsAffected = rowsAffected;
+            this.failure = failure;
+        }
+
+        /** Index of the first user of this chunk in the input. */
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getRowsAffected() {
+            return rowsAffected;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        /** The exception that rolled this chunk back, or null if it was committed. */
+        public DataAccessException getFailure() {
+            return failure;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,8 @@
 // ComponentB.java
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.Map;
+import java.util.StringJoiner;
 
 import javax.sql.DataSource;
 
@@ -7,6 +10,9 @@ import org.springframework.jdbc.core.JdbcTemplate;
 
 public class ComponentB {
 
+    // SQL and row mapping for every non-empty column combination, indexed by User.Column.mask
+    private static final Projection[] BY_EMAIL = Projection.compileAll("email = ?");
+
     private JdbcTemplate jdbcTemplate;
 
     public ComponentB(DataSource dataSource) {
@@ -23,4 +29,52 @@ public class ComponentB {
         String sql = "SELECT * FROM users WHERE email = ?";
         return jdbcTemplate.queryForMap(sql, email);
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves a user by email, selecting only the requested columns.
+     *
+     * @param email   The email of the user to retrieve.
+     * @param columns The columns to fetch; all columns when none are given.
+     *                Fields of columns that were not fetched are left null (or 0 for the id).
+     * @return The user, with the email set to {@code email}.
+     * @throws org.springframework.dao.EmptyResultDataAccessException If no user has this email.
+     */
+    public User fetchUserByEmail(String email, User.Column... columns) {
+        Projection projection = BY_EMAIL[User.Column.mask(columns)];
+        return jdbcTemplate.queryForObject(projection.sql, (rs, rowNum) -> projection.map(rs, email), email);
+    }
+
+    private static final class Projection {
+
+        final String sql;
+        private final boolean hasId;
+        private final boolean hasName;
+
+        private Projection(int mask, String where) {
+            StringJoiner select = new StringJoiner(", ", "SELECT ", " FROM users WHERE " + where);
+            for (User.Column column : User.Column.fromMask(mask)) {
+                select.add(column.getColumnName());
+            }
+            this.sql = select.toString();
+
+            this.hasId = (mask & User.Column.mask(User.Column.ID)) != 0;
+            this.hasName = (mask & User.Column.mask(User.Column.NAME)) != 0;
+        }
+
+        // Columns are selected in enum order, so the name follows the id when both are present
+        User map(ResultSet rs, String email) throws SQLException {
+            return new User(
+                    hasId ? rs.getInt(1) : 0,
+                    hasName ? rs.getString(hasId ? 2 : 1) : null,
+                    email);
+        }
+
+        static Projection[] compileAll(String where) {
+            Projection[] projections = new Projection[1 << User.Column.values().length];
+            for (int mask = 1; mask < projections.length; mask++) {
+                projections[mask] = new Projection(mask, where);
+            }
+            return projections;
+        }
+    }
+}
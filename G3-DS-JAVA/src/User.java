@@ -0,0 +1,78 @@
+// User.java
+import java.util.EnumSet;
+import java.util.Set;
+
+public final class User {
+
+    /**
+     * Columns that {@link ComponentB#fetchUserByEmail} can project. The email is not one of
+     * them: the reader looks users up by email and fills it in from its argument.
+     */
+    public enum Column {
+        ID("id"),
+        NAME("name");
+
+        private final String columnName;
+
+        Column(String columnName) {
+            this.columnName = columnName;
+        }
+
+        public String getColumnName() {
+            return columnName;
+        }
+
+        /** Bit set of the given columns, all columns when none are given. */
+        static int mask(Column... columns) {
+            if (columns.length == 0) {
+                return (1 << values().length) - 1;
+            }
+            int mask = 0;
+            for (Column column : columns) {
+                mask |= 1 << column.ordinal();
+            }
+            return mask;
+        }
+
+        static Set<Column> fromMask(int mask) {
+            Set<Column> columns = EnumSet.noneOf(Column.class);
+            for (Column column : values()) {
+                if ((mask & (1 << column.ordinal())) != 0) {
+                    columns.add(column);
+                }
+            }
+            return columns;
+        }
+    }
+
+    private final int id;
+    private final String name;
+    private final String email;
+
+    public User(String name, String email) {
+        this(0, name, email);
+    }
+
+    /**
+     * @param id    The database id, 0 if unknown or not projected.
+     * @param name  The name, null if not projected.
+     * @param email The email.
+     */
+    public User(int id, String name, String email) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
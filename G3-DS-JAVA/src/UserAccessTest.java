@@ -0,0 +1,143 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+public class UserAccessTest {
+
+    private ComponentA componentA;
+    private ComponentB componentB;
+    private EmbeddedDatabase db;
+
+    @BeforeEach
+    void setUp() {
+        db = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("schema.sql")
+                .build();
+        componentA = new ComponentA(db);
+        componentB = new ComponentB(db);
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.shutdown();
+    }
+
+    @Test
+    void testInsertUsersInChunks() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            users.add(new User("User " + i, "user" + i + "@example.com"));
+        }
+        componentA.setBatchSize(10);
+
+        List<ComponentA.ChunkResult> results = componentA.insertUsers(users);
+
+        assertEquals(3, results.size());
+        assertEquals(0, results.get(0).getOffset());
+        assertEquals(10, results.get(1).getOffset());
+        assertEquals(20, results.get(2).getOffset());
+        assertEquals(5, results.get(2).getSize());
+        for (ComponentA.ChunkResult result : results) {
+            assertTrue(result.isSuccess());
+            assertEquals(result.getSize(), result.getRowsAffected());
+        }
+        assertEquals("User 24", componentB.getUserByEmail("user24@example.com").get("name"));
+    }
+
+    @Test
+    void testInsertUsersFromStream() {
+        componentA.setBatchSize(7);
+
+        List<ComponentA.ChunkResult> results = componentA.insertUsers(
+                IntStream.range(0, 14).mapToObj(i -> new User("User " + i, "stream" + i + "@example.com")));
+
+        assertEquals(2, results.size());
+        assertEquals(14, results.get(0).getRowsAffected() + results.get(1).getRowsAffected());
+        assertTrue(componentA.insertUsers(new ArrayList<>()).isEmpty());
+    }
+
+    @Test
+    void testFetchUserProjections() {
+        componentA.insertUser("John Doe", "john.doe@example.com");
+
+        User full = componentB.fetchUserByEmail("john.doe@example.com");
+        assertTrue(full.getId() > 0);
+        assertEquals("John Doe", full.getName());
+        assertEquals("john.doe@example.com", full.getEmail());
+
+        User nameOnly = componentB.fetchUserByEmail("john.doe@example.com", User.Column.NAME);
+        assertEquals(0, nameOnly.getId());
+        assertEquals("John Doe", nameOnly.getName());
+        assertEquals("john.doe@example.com", nameOnly.getEmail());
+
+        User idOnly = componentB.fetchUserByEmail("john.doe@example.com", User.Column.ID);
+        assertEquals(full.getId(), idOnly.getId());
+        assertNull(idOnly.getName());
+        assertEquals("john.doe@example.com", idOnly.getEmail());
+
+        assertThrows(org.springframework.dao.EmptyResultDataAccessException.class,
+                () -> componentB.fetchUserByEmail("nonexistent@example.com", User.Column.NAME));
+    }
+
+    @Test
+    void testCacheHitsAndInvalidationOnWrite() {
+        componentA.insertUser("John Doe", "john.doe@example.com");
+        CachingComponentB cache = new CachingComponentB(componentB, componentA, 10, 1, TimeUnit.HOURS);
+
+        Map<String, Object> first = cache.getUserByEmail("john.doe@example.com");
+        Map<String, Object> second = cache.getUserByEmail("john.doe@example.com");
+        assertSame(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // Writes through the component invalidate only the emails they wrote
+        componentA.insertUser("Jane Doe", "jane.doe@example.com");
+        componentA.insertUsers(List.of(new User("Jim Doe", "jim.doe@example.com")));
+        assertSame(first, cache.getUserByEmail("john.doe@example.com"));
+        assertEquals(2, cache.getHitCount());
+
+        cache.invalidate("john.doe@example.com");
+        assertEquals("John Doe", cache.getUserByEmail("john.doe@example.com").get("name"));
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void testCacheEvictsLeastRecentlyUsedAndExpiredEntries() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            componentA.insertUser("User " + i, "user" + i + "@example.com");
+        }
+        CachingComponentB cache = new CachingComponentB(componentB, 2, 1, TimeUnit.HOURS);
+
+        cache.getUserByEmail("user0@example.com");
+        cache.getUserByEmail("user1@example.com");
+        cache.getUserByEmail("user0@example.com"); // user1 is now the least recently used
+        cache.getUserByEmail("user2@example.com");
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+
+        cache.getUserByEmail("user0@example.com");
+        assertEquals(2, cache.getHitCount());
+        cache.getUserByEmail("user1@example.com");
+        assertEquals(4, cache.getMissCount());
+
+        CachingComponentB shortLived = new CachingComponentB(componentB, 2, 1, TimeUnit.MILLISECONDS);
+        shortLived.getUserByEmail("user0@example.com");
+        Thread.sleep(5);
+        shortLived.getUserByEmail("user0@example.com");
+        assertEquals(0, shortLived.getHitCount());
+        assertEquals(2, shortLived.getMissCount());
+    }
+}
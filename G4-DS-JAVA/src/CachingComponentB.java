@@ -0,0 +1,251 @@
+// CachingComponentB.java
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class CachingComponentB {
+
+    // Four-way set-associative table: a user can live in one of four slots of its set,
+    // so lookups probe at most four int keys and never box the id
+    private static final int WAYS = 4;
+
+    private final ComponentB delegate;
+    private final long ttlNanos;
+    private final int setMask;
+    private final int[] keys;
+    private final User[] values;
+    private final long[] loadedAt;
+    // Access stamp per slot; the least recently used way of a full set is evicted
+    private final long[] lastUsed;
+    private long clock;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    // Bumped on every write so a lookup that raced with it does not cache the stale row
+    private long generation;
+
+    /**
+     * Creates a read-through ID cache in front of a {@link ComponentB}.
+     *
+     * @param delegate   The component that performs the database lookups.
+     * @param maxEntries The approximate maximum number of cached users, rounded up to a power of two.
+     * @param ttl        How long a cached user stays valid.
+     * @param unit       The unit of {@code ttl}.
+     */
+    public CachingComponentB(ComponentB delegate, int maxEntries, long ttl, TimeUnit unit) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        int minSets = (maxEntries + WAYS - 1) / WAYS;
+        int sets = Integer.highestOneBit(minSets);
+        if (sets < minSets) {
+            sets <<= 1;
+        }
+        this.delegate = delegate;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.setMask = sets - 1;
+        this.keys = new int[sets * WAYS];
+        this.values = new User[sets * WAYS];
+        this.loadedAt = new long[sets * WAYS];
+        this.lastUsed = new long[sets * WAYS];
+    }
+
+    /**
+     * Creates a cache that is updated write-through whenever {@code writer} changes an email.
+     */
+    public CachingComponentB(ComponentB delegate, ComponentA writer, int maxEntries, long ttl, TimeUnit unit) {
+        this(delegate, maxEntries, ttl, unit);
+        writer.addEmailUpdateListener(this::emailUpdated);
+    }
+
+    /**
+     * Retrieves a user by ID, serving it from the cache when a fresh entry exists.
+     *
+     * @param userId The ID of the user to retrieve.
+     * @return The user.
+     * @throws org.springframework.dao.EmptyResultDataAccessException If no user has this ID.
+     */
+    public User getUserById(int userId) {
+        long now = System.nanoTime();
+        long loadGeneration;
+        synchronized (this) {
+            int slot = find(userId, now);
+            if (slot >= 0) {
+                hits++;
+                return values[slot];
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        User user = delegate.fetchUserById(userId);
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                put(user, now);
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Retrieves several users at once. Cached users are served from memory and all
+     * misses are fetched together with {@link ComponentB#fetchUsersByIds}.
+     *
+     * @param userIds The IDs of the users to retrieve.
+     * @return The users in the same order as {@code userIds}, null where no user exists.
+     */
+    public User[] getUsersByIds(int[] userIds) {
+        long now = System.nanoTime();
+        User[] result = new User[userIds.length];
+        int[] missIds = new int[userIds.length];
+        int missCount = 0;
+        long loadGeneration;
+        synchronized (this) {
+            for (int i = 0; i < userIds.length; i++) {
+                int slot = find(userIds[i], now);
+                if (slot >= 0) {
+                    hits++;
+                    result[i] = values[slot];
+                } else {
+                    misses++;
+                    missIds[missCount++] = userIds[i];
+                }
+            }
+            loadGeneration = generation;
+        }
+        if (missCount == 0) {
+            return result;
+        }
+
+        List<User> loaded = delegate.fetchUsersByIds(Arrays.copyOf(missIds, missCount));
+        User[] byId = loaded.toArray(new User[0]);
+        Arrays.sort(byId, Comparator.comparingInt(User::getId));
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                for (User user : byId) {
+                    put(user, now);
+                }
+            }
+        }
+        for (int i = 0; i < userIds.length; i++) {
+            if (result[i] == null) {
+                result[i] = findSorted(byId, userIds[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Applies a committed email change to the cached user, if present.
+     *
+     * @param userId   The ID of the updated user.
+     * @param newEmail The email that was written.
+     */
+    public synchronized void emailUpdated(int userId, String newEmail) {
+        generation++;
+        int slot = find(userId, System.nanoTime());
+        if (slot >= 0) {
+            User old = values[slot];
+            values[slot] = new User(userId, old.getName(), newEmail);
+        }
+    }
+
+    /**
+     * Drops the cached entry for a user.
+     *
+     * @param userId The ID whose entry should be discarded.
+     */
+    public synchronized void invalidate(int userId) {
+        generation++;
+        int slot = find(userId, System.nanoTime());
+        if (slot >= 0) {
+            values[slot] = null;
+        }
+    }
+
+    /**
+     * Drops every cached entry.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        Arrays.fill(values, null);
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /** Entries removed because their set was full or their TTL had expired. */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    private int find(int userId, long now) {
+        int set = setOf(userId);
+        for (int way = 0; way < WAYS; way++) {
+            int slot = set * WAYS + way;
+            if (values[slot] != null && keys[slot] == userId) {
+                if (now - loadedAt[slot] >= ttlNanos) {
+                    values[slot] = null;
+                    evictions++;
+                    return -1;
+                }
+                lastUsed[slot] = ++clock;
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void put(User user, long now) {
+        int userId = user.getId();
+        int set = setOf(userId);
+        int victim = set * WAYS;
+        for (int slot = set * WAYS; slot < (set + 1) * WAYS; slot++) {
+            if (values[slot] == null || keys[slot] == userId) {
+                victim = slot;
+                break;
+            }
+            if (lastUsed[slot] < lastUsed[victim]) {
+                victim = slot;
+            }
+        }
+        if (values[victim] != null && keys[victim] != userId) {
+            evictions++;
+        }
+        keys[victim] = userId;
+        values[victim] = user;
+        loadedAt[victim] = now;
+        lastUsed[victim] = ++clock;
+    }
+
+    private int setOf(int userId) {
+        // Fibonacci hashing spreads sequential ids across sets
+        int h = userId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & setMask;
+    }
+
+    private static User findSorted(User[] byId, int userId) {
+        int low = 0;
+        int high = byId.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int id = byId[mid].getId();
+            if (id < userId) {
+                low = mid + 1;
+            } else if (id > userId) {
+                high = mid - 1;
+            } else {
+                return byId[mid];
+            }
+        }
+        return null;
+    }
+}
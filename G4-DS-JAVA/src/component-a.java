@@ -1,13 +1,101 @@
 // ComponentA.java
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class ComponentA {
 
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String UPDATE_EMAIL_SQL = "UPDATE users SET email = ? WHERE id = ?";
+
     private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private final List<EmailUpdateListener> updateListeners = new CopyOnWriteArrayList<>();
+
+    // Queued updates not yet flushed; a later update to the same id replaces the earlier one.
+    // Guarded by this, which is only held briefly, never while a batch is written.
+    private Map<Integer, String> pendingEmails = new LinkedHashMap<>();
+    // Swaps of the queue so far, so a timed flush can tell whether its updates were already written
+    private long flushGeneration;
+    private long flushWindowNanos;
+    private ScheduledExecutorService flushTimer;
+    // Held while a flush writes, so that flushes commit in the order they took the queue
+    private final Object writeLock = new Object();
+
+    private long coalescedUpdates;
+    private long failedUpdates;
+    private long rowsUpdated;
+    private long batches;
+    private long totalBatchNanos;
+    private long maxBatchNanos;
 
     public ComponentA(DataSource dataSource) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Sets how many distinct users are collected before queued updates are flushed
+     * as one JDBC batch in one transaction.
+     *
+     * @param batchSize The batch size, must be positive.
+     */
+    public synchronized void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the coalescing window: queued updates are flushed at most {@code window} after the
+     * first of them was queued, even if fewer than {@code batchSize} users are pending. The
+     * timed flushes run on a daemon thread owned by this component, and their failed updates
+     * are reported to {@link EmailUpdateListener#emailUpdateFailed}. Zero, the default,
+     * disables timed flushes.
+     *
+     * @param window The longest time an update waits in the queue, must not be negative.
+     * @param unit   The unit of {@code window}.
+     */
+    public synchronized void setFlushWindow(long window, TimeUnit unit) {
+        if (window < 0) {
+            throw new IllegalArgumentException("Flush window must not be negative");
+        }
+        this.flushWindowNanos = unit.toNanos(window);
+        if (flushWindowNanos > 0 && flushTimer == null) {
+            flushTimer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "email-update-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (!pendingEmails.isEmpty()) {
+            scheduleTimedFlush();
+        }
+    }
+
+    /**
+     * Registers a callback that is told about every email this component writes, after
+     * the write has been committed. Used to keep caches such as {@link CachingComponentB}
+     * consistent.
+     *
+     * @param listener The callback to invoke with each update.
+     */
+    public void addEmailUpdateListener(EmailUpdateListener listener) {
+        updateListeners.add(listener);
     }
 
     /**
@@ -17,7 +105,275 @@ public class ComponentA {
      * @param newEmail The new email address.
      */
     public void updateUserEmail(int userId, String newEmail) {
-        String sql = "UPDATE users SET email = ? WHERE id = ?";
-        jdbcTemplate.update(sql, newEmail, userId);
+        jdbcTemplate.update(UPDATE_EMAIL_SQL, newEmail, userId);
+        fireEmailUpdated(userId, newEmail);
+    }
+
+    /**
+     * Queues an email update. Updates are coalesced per user until the next flush, so only
+     * the last email queued for a user is written. A flush happens once {@code batchSize}
+     * distinct users are pending, in the calling thread, or when the flush window set with
+     * {@link #setFlushWindow} has passed. Without a flush window, callers must call
+     * {@link #flushEmailUpdates()} when they stop queueing, or the last updates are never
+     * written.
+     * <p>
+     * Queueing does not wait for a batch that is being written. Only a caller whose update
+     * fills the next batch waits, until the batch before it has been written.
+     *
+     * @param userId The ID of the user to update.
+     * @param newEmail The new email address.
+     * @return The outcome of the automatic flush, or null if this update did not trigger one.
+     */
+    public FlushResult queueEmailUpdate(int userId, String newEmail) {
+        synchronized (this) {
+            if (pendingEmails.isEmpty()) {
+                scheduleTimedFlush();
+            }
+            if (pendingEmails.put(userId, newEmail) != null) {
+                coalescedUpdates++;
+            }
+            if (pendingEmails.size() < batchSize) {
+                return null;
+            }
+        }
+        return flushEmailUpdates();
+    }
+
+    /**
+     * Writes all queued email updates in JDBC batches of up to {@code batchSize} updates,
+     * each in its own transaction.
+     * <p>
+     * The queue is swapped for an empty one first, so updates can be queued while the
+     * batches are written and a failing update cannot block the updates queued after it.
+     * If a batch fails it is rolled back and each half is retried as its own batch, down to
+     * single updates; the updates that still fail on their own are dropped and reported in
+     * the result, and all the others are written.
+     *
+     * @return The number of rows updated and the updates that failed.
+     */
+    public FlushResult flushEmailUpdates() {
+        synchronized (writeLock) {
+            Map<Integer, String> taken;
+            int chunkSize;
+            synchronized (this) {
+                if (pendingEmails.isEmpty()) {
+                    return new FlushResult(0, Collections.emptyList());
+                }
+                taken = pendingEmails;
+                pendingEmails = new LinkedHashMap<>();
+                flushGeneration++;
+                chunkSize = batchSize;
+            }
+
+            // The queue may have grown past batchSize while the previous flush was writing
+            List<Map.Entry<Integer, String>> updates = new ArrayList<>(taken.entrySet());
+            List<FailedUpdate> failures = new ArrayList<>();
+            int rows = 0;
+            for (int from = 0; from < updates.size(); from += chunkSize) {
+                rows += writeBatch(updates.subList(from, Math.min(from + chunkSize, updates.size())), failures);
+            }
+            synchronized (this) {
+                failedUpdates += failures.size();
+            }
+            for (FailedUpdate failure : failures) {
+                for (EmailUpdateListener listener : updateListeners) {
+                    listener.emailUpdateFailed(failure);
+                }
+            }
+            return new FlushResult(rows, failures);
+        }
+    }
+
+    // Called with this locked when the first update enters an empty queue
+    private void scheduleTimedFlush() {
+        if (flushWindowNanos == 0) {
+            return;
+        }
+        long generation = flushGeneration;
+        flushTimer.schedule(() -> {
+            synchronized (this) {
+                if (flushGeneration != generation) {
+                    return; // these updates were already written by another flush
+                }
+            }
+            flushEmailUpdates();
+        }, flushWindowNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Writes updates as one batch in one transaction, bisecting the batch if it fails.
+     * A single bad update costs about {@code 2 * log2(n)} extra batches.
+     */
+    private int writeBatch(List<Map.Entry<Integer, String>> updates, List<FailedUpdate> failures) {
+        List<Object[]> args = new ArrayList<>(updates.size());
+        for (Map.Entry<Integer, String> update : updates) {
+            args.add(new Object[] {update.getValue(), update.getKey()});
+        }
+
+        long start = System.nanoTime();
+        int[] counts;
+        try {
+            counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_EMAIL_SQL, args));
+        } catch (DataAccessException e) {
+            if (updates.size() == 1) {
+                Map.Entry<Integer, String> update = updates.get(0);
+                failures.add(new FailedUpdate(update.getKey(), update.getValue(), e));
+                return 0;
+            }
+            int middle = updates.size() / 2;
+            return writeBatch(updates.subList(0, middle), failures)
+                    + writeBatch(updates.subList(middle, updates.size()), failures);
+        }
+        long elapsed = System.nanoTime() - start;
+        for (Map.Entry<Integer, String> update : updates) {
+            fireEmailUpdated(update.getKey(), update.getValue());
+        }
+
+        int rows = 0;
+        for (int count : counts) {
+            // Drivers may report SUCCESS_NO_INFO (-2) instead of a row count
+            rows += count > 0 ? count : 0;
+        }
+        synchronized (this) {
+            rowsUpdated += rows;
+            batches++;
+            totalBatchNanos += elapsed;
+            maxBatchNanos = Math.max(maxBatchNanos, elapsed);
+        }
+        return rows;
+    }
+
+    private void fireEmailUpdated(int userId, String newEmail) {
+        for (EmailUpdateListener listener : updateListeners) {
+            listener.emailUpdated(userId, newEmail);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the batched update counters.
+     */
+    public synchronized UpdateMetrics getUpdateMetrics() {
+        return new UpdateMetrics(rowsUpdated, batches, coalescedUpdates, failedUpdates, totalBatchNanos, maxBatchNanos);
+    }
+
+    /**
+     * Receives the committed email updates of a {@link ComponentA}.
+     */
+    @FunctionalInterface
+    public interface EmailUpdateListener {
+
+        void emailUpdated(int userId, String newEmail);
+
+        /**
+         * Called when a queued update is dropped because it failed, see
+         * {@link FlushResult#getFailures()}.
+         */
+        default void emailUpdateFailed(FailedUpdate failure) {
+        }
+    }
+
+    /**
+     * Outcome of a flush of the queued email updates.
+     */
+    public static final class FlushResult {
+
+        private final int rowsUpdated;
+        private final List<FailedUpdate> failures;
+
+        FlushResult(int rowsUpdated, List<FailedUpdate> failures) {
+            this.rowsUpdated = rowsUpdated;
+            this.failures = Collections.unmodifiableList(failures);
+        }
+
+        public int getRowsUpdated() {
+            return rowsUpdated;
+        }
+
+        /** The updates that were dropped because they failed even when written on their own. */
+        public List<FailedUpdate> getFailures() {
+            return failures;
+        }
+    }
+
+    /**
+     * A queued email update that could not be written.
+     */
+    public static final class FailedUpdate {
+
+        private final int userId;
+        private final String newEmail;
+        private final DataAccessException failure;
+
+        FailedUpdate(int userId, String newEmail, DataAccessException failure) {
+            this.userId = userId;
+            this.newEmail = newEmail;
+            this.failure = failure;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public String getNewEmail() {
+            return newEmail;
+        }
+
+        public DataAccessException getFailure() {
+            return failure;
+        }
+    }
+
+    /**
+     * Counters of the batched email updates since this component was created.
+     */
+    public static final class UpdateMetrics {
+
+        private final long rowsUpdated;
+        private final long batches;
+        private final long coalescedUpdates;
+        private final long failedUpdates;
+        private final long totalBatchNanos;
+        private final long maxBatchNanos;
+
+        UpdateMetrics(long rowsUpdated, long batches, long coalescedUpdates, long failedUpdates, long totalBatchNanos,
+                      long maxBatchNanos) {
+            this.rowsUpdated = rowsUpdated;
+            this.batches = batches;
+            this.coalescedUpdates = coalescedUpdates;
+            this.failedUpdates = failedUpdates;
+            this.totalBatchNanos = totalBatchNanos;
+            this.maxBatchNanos = maxBatchNanos;
+        }
+
+        public long getRowsUpdated() {
+            return rowsUpdated;
+        }
+
+        public long getBatches() {
+            return batches;
+        }
+
+        /** Queued updates that were superseded by a later update to the same user. */
+        public long getCoalescedUpdates() {
+            return coalescedUpdates;
+        }
+
+        /** Queued updates that were dropped because they failed, see {@link FlushResult#getFailures()}. */
+        public long getFailedUpdates() {
+            return failedUpdates;
+        }
+
+        /** Rows updated per second of time spent executing batches. */
+        public double getRowsPerSecond() {
+            return totalBatchNanos == 0 ? 0 : rowsUpdated * 1e9 / totalBatchNanos;
+        }
+
+        public long getAverageBatchLatency(TimeUnit unit) {
+            return batches == 0 ? 0 : unit.convert(totalBatchNanos / batches, TimeUnit.NANOSECONDS);
+        }
+
+        public long getMaxBatchLatency(TimeUnit unit) {
+            return unit.convert(maxBatchNanos, TimeUnit.NANOSECONDS);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,24 @@
 // ComponentB.java
 import org.springframework.jdbc.core.JdbcTemplate;
 import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
 
 public class ComponentB {
 
+    // Upper bound on bind parameters per IN-list, below common database limits
+    public static final int MAX_IN_LIST_SIZE = 1000;
+
+    // SQL and row mapping for every non-empty column combination, indexed by User.Column.mask.
+    // A single-id lookup already knows the id; an IN query selects it to tell the rows apart.
+    private static final Projection[] BY_ID = Projection.compileAll("id = ?", false);
+    private static final Projection[] BY_ID_IN = Projection.compileAll("id IN ", true);
+
     private JdbcTemplate jdbcTemplate;
 
     public ComponentB(DataSource dataSource) {
@@ -21,4 +35,83 @@ public class ComponentB {
         String sql = "SELECT * FROM users WHERE id = ?";
         return jdbcTemplate.queryForMap(sql, userId);
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves a user by ID, selecting only the requested columns.
+     *
+     * @param userId  The ID of the user to retrieve.
+     * @param columns The columns to fetch; all columns when none are given.
+     *                Fields of columns that were not fetched are left null.
+     * @return The user, with the ID set to {@code userId}.
+     * @throws org.springframework.dao.EmptyResultDataAccessException If no user has this ID.
+     */
+    public User fetchUserById(int userId, User.Column... columns) {
+        Projection projection = BY_ID[User.Column.mask(columns)];
+        return jdbcTemplate.queryForObject(projection.sql, (rs, rowNum) -> projection.map(rs, userId), userId);
+    }
+
+    /**
+     * Retrieves the users with the given IDs using one IN query per
+     * {@link #MAX_IN_LIST_SIZE} IDs. IDs without a user are skipped.
+     *
+     * @param userIds The IDs of the users to retrieve.
+     * @param columns The columns to fetch; all columns when none are given.
+     * @return The users found, in no particular order.
+     */
+    public List<User> fetchUsersByIds(int[] userIds, User.Column... columns) {
+        Projection projection = BY_ID_IN[User.Column.mask(columns)];
+        List<User> users = new ArrayList<>(userIds.length);
+        for (int from = 0; from < userIds.length; from += MAX_IN_LIST_SIZE) {
+            int start = from;
+            int count = Math.min(MAX_IN_LIST_SIZE, userIds.length - from);
+            String sql = projection.sql + "(" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+            users.addAll(jdbcTemplate.query(sql, ps -> {
+                for (int i = 0; i < count; i++) {
+                    ps.setInt(i + 1, userIds[start + i]);
+                }
+            }, (rs, rowNum) -> projection.map(rs, 0)));
+        }
+        return users;
+    }
+
+    private static final class Projection {
+
+        final String sql;
+        private final boolean selectsId;
+        private final boolean hasName;
+        private final boolean hasEmail;
+
+        private Projection(int mask, String where, boolean selectsId) {
+            StringJoiner select = new StringJoiner(", ", "SELECT ", " FROM users WHERE " + where);
+            if (selectsId) {
+                select.add("id");
+            }
+            for (User.Column column : User.Column.fromMask(mask)) {
+                select.add(column.getColumnName());
+            }
+            this.sql = select.toString();
+
+            this.selectsId = selectsId;
+            this.hasName = (mask & User.Column.mask(User.Column.NAME)) != 0;
+            this.hasEmail = (mask & User.Column.mask(User.Column.EMAIL)) != 0;
+        }
+
+        // Columns are selected as id, then enum order, so each field reads a fixed index
+        User map(ResultSet rs, int userId) throws SQLException {
+            int nameIndex = selectsId ? 2 : 1;
+            int emailIndex = nameIndex + (hasName ? 1 : 0);
+            return new User(
+                    selectsId ? rs.getInt(1) : userId,
+                    hasName ? rs.getString(nameIndex) : null,
+                    hasEmail ? rs.getString(emailIndex) : null);
+        }
+
+        static Projection[] compileAll(String where, boolean selectsId) {
+            Projection[] projections = new Projection[1 << User.Column.values().length];
+            for (int mask = 1; mask < projections.length; mask++) {
+                projections[mask] = new Projection(mask, where, selectsId);
+            }
+            return projections;
+        }
+    }
+}
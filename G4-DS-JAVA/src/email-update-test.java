@@ -0,0 +1,208 @@
+// EmailUpdateTest.java
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailUpdateTest {
+
+    private static final int USERS = 10;
+    // Rejected by the statement wrapper below, so the test does not depend on the schema's constraints
+    private static final String REJECTED_EMAIL = "rejected@example.com";
+
+    private JdbcTemplate jdbcTemplate;
+    private ComponentA componentA;
+    private final List<String> updated = new CopyOnWriteArrayList<>();
+    private final List<ComponentA.FailedUpdate> failed = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        DataSource dataSource = DatabaseConfig.dataSource();
+        DatabaseConfig.createTable(dataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("DELETE FROM users");
+        String sql = "INSERT INTO users (id, name, email) VALUES (?, ?, ?)";
+        for (int id = 1; id <= USERS; id++) {
+            jdbcTemplate.update(sql, id, "User " + id, email(id, "old"));
+        }
+
+        componentA = new ComponentA(rejecting(dataSource));
+        componentA.addEmailUpdateListener(new ComponentA.EmailUpdateListener() {
+            @Override
+            public void emailUpdated(int userId, String newEmail) {
+                updated.add(userId + "=" + newEmail);
+            }
+
+            @Override
+            public void emailUpdateFailed(ComponentA.FailedUpdate failure) {
+                failed.add(failure);
+            }
+        });
+    }
+
+    @Test
+    public void testQueuedUpdatesAreCoalesced() {
+        assertNull(componentA.queueEmailUpdate(1, email(1, "a")));
+        assertNull(componentA.queueEmailUpdate(2, email(2, "a")));
+        assertNull(componentA.queueEmailUpdate(1, email(1, "b")));
+        assertEquals(email(1, "old"), emailOf(1), "Queued updates are not written before a flush");
+
+        ComponentA.FlushResult result = componentA.flushEmailUpdates();
+
+        assertEquals(2, result.getRowsUpdated());
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(email(1, "b"), emailOf(1));
+        assertEquals(email(2, "a"), emailOf(2));
+        assertEquals(Arrays.asList("1=" + email(1, "b"), "2=" + email(2, "a")), updated);
+
+        ComponentA.UpdateMetrics metrics = componentA.getUpdateMetrics();
+        assertEquals(1, metrics.getCoalescedUpdates());
+        assertEquals(2, metrics.getRowsUpdated());
+        assertEquals(1, metrics.getBatches());
+    }
+
+    @Test
+    public void testFlushesWhenBatchIsFull() {
+        componentA.setBatchSize(3);
+
+        assertNull(componentA.queueEmailUpdate(1, email(1, "a")));
+        assertNull(componentA.queueEmailUpdate(2, email(2, "a")));
+        // Coalesced, so still two distinct users pending
+        assertNull(componentA.queueEmailUpdate(2, email(2, "b")));
+        ComponentA.FlushResult result = componentA.queueEmailUpdate(3, email(3, "a"));
+
+        assertNotNull(result);
+        assertEquals(3, result.getRowsUpdated());
+        assertEquals(email(2, "b"), emailOf(2));
+        assertEquals(email(3, "a"), emailOf(3));
+        assertEquals(0, componentA.flushEmailUpdates().getRowsUpdated());
+    }
+
+    @Test
+    public void testFailingUpdateIsBisectedAndDropped() {
+        componentA.setBatchSize(8);
+        ComponentA.FlushResult result = null;
+        for (int id = 1; id <= 8; id++) {
+            result = componentA.queueEmailUpdate(id, id == 5 ? REJECTED_EMAIL : email(id, "new"));
+        }
+
+        assertNotNull(result);
+        assertEquals(7, result.getRowsUpdated());
+        assertEquals(1, result.getFailures().size());
+        ComponentA.FailedUpdate failure = result.getFailures().get(0);
+        assertEquals(5, failure.getUserId());
+        assertEquals(REJECTED_EMAIL, failure.getNewEmail());
+        assertNotNull(failure.getFailure());
+        assertEquals(List.of(failure), failed);
+
+        assertEquals(email(5, "old"), emailOf(5));
+        for (int id = 1; id <= 8; id++) {
+            if (id != 5) {
+                assertEquals(email(id, "new"), emailOf(id));
+            }
+        }
+        assertEquals(7, updated.size());
+
+        // [1-4] and [7-8] commit, [5-8] and [5-6] roll back, [6] commits and [5] is dropped
+        ComponentA.UpdateMetrics metrics = componentA.getUpdateMetrics();
+        assertEquals(3, metrics.getBatches());
+        assertEquals(1, metrics.getFailedUpdates());
+    }
+
+    @Test
+    public void testFailureDoesNotBlockLaterUpdates() {
+        componentA.queueEmailUpdate(1, REJECTED_EMAIL);
+        assertEquals(1, componentA.flushEmailUpdates().getFailures().size());
+
+        componentA.queueEmailUpdate(1, email(1, "new"));
+        ComponentA.FlushResult result = componentA.flushEmailUpdates();
+
+        assertEquals(1, result.getRowsUpdated());
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(email(1, "new"), emailOf(1));
+    }
+
+    @Test
+    public void testTimedFlush() throws InterruptedException {
+        CountDownLatch written = new CountDownLatch(2);
+        componentA.addEmailUpdateListener((userId, newEmail) -> written.countDown());
+        componentA.setFlushWindow(200, TimeUnit.MILLISECONDS);
+
+        assertNull(componentA.queueEmailUpdate(1, email(1, "a")));
+        assertNull(componentA.queueEmailUpdate(2, email(2, "a")));
+
+        assertTrue(written.await(5, TimeUnit.SECONDS), "Updates should be flushed once the window has passed");
+        assertEquals(email(1, "a"), emailOf(1));
+        assertEquals(email(2, "a"), emailOf(2));
+        assertEquals(1, componentA.getUpdateMetrics().getBatches());
+    }
+
+    @Test
+    public void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> componentA.setBatchSize(0));
+        assertThrows(IllegalArgumentException.class, () -> componentA.setFlushWindow(-1, TimeUnit.SECONDS));
+    }
+
+    private String emailOf(int id) {
+        return jdbcTemplate.queryForObject("SELECT email FROM users WHERE id = ?", String.class, id);
+    }
+
+    private static String email(int id, String tag) {
+        return "user" + id + "." + tag + "@example.com";
+    }
+
+    // Wraps the data source so that binding REJECTED_EMAIL to a statement fails
+    private static DataSource rejecting(DataSource target) {
+        return proxy(DataSource.class, (method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection ? rejecting((Connection) result) : result;
+        });
+    }
+
+    private static Connection rejecting(Connection target) {
+        return proxy(Connection.class, (method, args) -> {
+            Object result = invoke(target, method, args);
+            if (!(result instanceof PreparedStatement)) {
+                return result;
+            }
+            PreparedStatement statement = (PreparedStatement) result;
+            return proxy(PreparedStatement.class, (statementMethod, statementArgs) -> {
+                if (statementMethod.getName().startsWith("set") && statementArgs != null
+                        && Arrays.asList(statementArgs).contains(REJECTED_EMAIL)) {
+                    throw new SQLException("Rejected email", "23000");
+                }
+                return invoke(statement, statementMethod, statementArgs);
+            });
+        });
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> handler.handle(method, args)));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
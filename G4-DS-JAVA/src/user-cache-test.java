@@ -0,0 +1,146 @@
+// UserCacheTest.java
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserCacheTest {
+
+    private static final int USERS = 10;
+
+    private JdbcTemplate jdbcTemplate;
+    private ComponentA componentA;
+    private ComponentB componentB;
+    private CachingComponentB cache;
+
+    @BeforeEach
+    public void setUp() {
+        DataSource dataSource = DatabaseConfig.dataSource();
+        DatabaseConfig.createTable(dataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("DELETE FROM users");
+        String sql = "INSERT INTO users (id, name, email) VALUES (?, ?, ?)";
+        for (int id = 1; id <= USERS; id++) {
+            jdbcTemplate.update(sql, id, "User " + id, "user" + id + "@example.com");
+        }
+
+        componentA = new ComponentA(dataSource);
+        componentB = new ComponentB(dataSource);
+        cache = new CachingComponentB(componentB, componentA, 64, 1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void testGetUsersByIdsHitsAndMisses() {
+        User[] first = cache.getUsersByIds(new int[] {1, 2, 3});
+
+        assertUser(first[0], 1, "user1@example.com");
+        assertUser(first[1], 2, "user2@example.com");
+        assertUser(first[2], 3, "user3@example.com");
+        assertEquals(0, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+
+        User[] second = cache.getUsersByIds(new int[] {3, 4, 1});
+
+        assertSame(first[2], second[0]);
+        assertUser(second[1], 4, "user4@example.com");
+        assertSame(first[0], second[2]);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+
+        assertSame(second[1], cache.getUserById(4));
+        assertEquals(3, cache.getHitCount());
+    }
+
+    @Test
+    public void testGetUsersByIdsWithUnknownIds() {
+        User[] users = cache.getUsersByIds(new int[] {99, 5, 99});
+
+        assertNull(users[0]);
+        assertUser(users[1], 5, "user5@example.com");
+        assertNull(users[2]);
+        assertEquals(0, cache.getUsersByIds(new int[0]).length);
+        assertThrows(EmptyResultDataAccessException.class, () -> cache.getUserById(99));
+    }
+
+    @Test
+    public void testUpdateIsWrittenThrough() {
+        cache.getUsersByIds(new int[] {1, 2});
+
+        componentA.updateUserEmail(1, "new1@example.com");
+        // Changed behind the cache's back, so only a reload would see it
+        jdbcTemplate.update("UPDATE users SET name = ? WHERE id = ?", "Renamed", 1);
+        User[] users = cache.getUsersByIds(new int[] {1, 2});
+
+        assertUser(users[0], 1, "new1@example.com");
+        assertEquals("User 1", users[0].getName());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testFlushIsWrittenThrough() {
+        cache.getUsersByIds(new int[] {1, 2, 3});
+
+        componentA.queueEmailUpdate(2, "new2@example.com");
+        componentA.queueEmailUpdate(3, "new3@example.com");
+        assertEquals("user2@example.com", cache.getUserById(2).getEmail(), "Queued updates are not visible yet");
+        componentA.flushEmailUpdates();
+
+        User[] users = cache.getUsersByIds(new int[] {2, 3});
+        assertUser(users[0], 2, "new2@example.com");
+        assertUser(users[1], 3, "new3@example.com");
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testInvalidate() {
+        cache.getUsersByIds(new int[] {1, 2});
+        jdbcTemplate.update("UPDATE users SET name = ? WHERE id = ?", "Renamed", 1);
+
+        cache.invalidate(1);
+        assertEquals("Renamed", cache.getUsersByIds(new int[] {1})[0].getName());
+        assertEquals(3, cache.getMissCount());
+
+        cache.invalidateAll();
+        cache.getUsersByIds(new int[] {1, 2});
+        assertEquals(5, cache.getMissCount());
+    }
+
+    @Test
+    public void testExpiredEntriesAreReloaded() {
+        CachingComponentB expiring = new CachingComponentB(componentB, 64, 0, TimeUnit.SECONDS);
+
+        expiring.getUsersByIds(new int[] {1, 2});
+        expiring.getUsersByIds(new int[] {1, 2});
+
+        assertEquals(0, expiring.getHitCount());
+        assertEquals(4, expiring.getMissCount());
+        assertEquals(2, expiring.getEvictionCount());
+    }
+
+    @Test
+    public void testFullSetEvictsLeastRecentlyUsed() {
+        // One set of four ways
+        CachingComponentB small = new CachingComponentB(componentB, 4, 1, TimeUnit.MINUTES);
+
+        small.getUsersByIds(new int[] {1, 2, 3, 4});
+        small.getUserById(1);
+        small.getUserById(5);
+
+        assertEquals(1, small.getEvictionCount());
+        small.getUsersByIds(new int[] {1, 3, 4, 5});
+        assertEquals(5, small.getHitCount());
+        small.getUserById(2);
+        assertEquals(6, small.getMissCount());
+    }
+
+    private static void assertUser(User user, int id, String email) {
+        assertNotNull(user);
+        assertEquals(id, user.getId());
+        assertEquals("User " + id, user.getName());
+        assertEquals(email, user.getEmail());
+    }
+}
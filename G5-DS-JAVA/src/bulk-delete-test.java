@@ -0,0 +1,113 @@
+// BulkDeleteTest.java
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkDeleteTest {
+
+    private static final int USERS = 25;
+
+    private JdbcTemplate jdbcTemplate;
+    private ComponentA componentA;
+
+    @BeforeEach
+    public void setUp() {
+        DataSource dataSource = DatabaseConfig.dataSource();
+        DatabaseConfig.createTable(dataSource);
+        componentA = new ComponentA(dataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("DELETE FROM users");
+        String sql = "INSERT INTO users (name, email) VALUES (?, ?)";
+        for (int i = 0; i < USERS; i++) {
+            jdbcTemplate.update(sql, "User " + i, email(i));
+        }
+        jdbcTemplate.update(sql, "Keep", "keep@example.com");
+    }
+
+    @Test
+    public void testDeletesInChunks() {
+        componentA.setChunkSize(10);
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            emails.add(email(i));
+        }
+        emails.add("unknown1@example.com");
+        emails.add("unknown2@example.com");
+
+        List<ComponentA.ChunkResult> results = componentA.deleteUsersByEmail(emails);
+
+        assertEquals(3, results.size());
+        assertChunk(results.get(0), 0, 10, 10);
+        assertChunk(results.get(1), 10, 10, 10);
+        assertChunk(results.get(2), 20, 7, 5);
+        assertEquals(List.of("keep@example.com"), remainingEmails());
+    }
+
+    @Test
+    public void testDeletesFromStream() {
+        componentA.setChunkSize(4);
+        AtomicBoolean closed = new AtomicBoolean();
+        // Each email twice, so half of every chunk matches rows already deleted
+        Stream<String> emails = IntStream.range(0, 6)
+                .mapToObj(BulkDeleteTest::email)
+                .flatMap(email -> Stream.of(email, email))
+                .onClose(() -> closed.set(true));
+
+        List<ComponentA.ChunkResult> results = componentA.deleteUsersByEmail(emails);
+
+        assertTrue(closed.get());
+        assertEquals(3, results.size());
+        assertChunk(results.get(0), 0, 4, 2);
+        assertChunk(results.get(1), 4, 4, 2);
+        assertChunk(results.get(2), 8, 4, 2);
+        assertEquals(USERS - 6 + 1, remainingEmails().size());
+    }
+
+    @Test
+    public void testSingleChunk() {
+        List<ComponentA.ChunkResult> results = componentA.deleteUsersByEmail(List.of(email(0), email(1)));
+
+        assertEquals(1, results.size());
+        assertChunk(results.get(0), 0, 2, 2);
+        assertTrue(results.get(0).getElapsed(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(results.get(0).getEmailsPerSecond() > 0);
+    }
+
+    @Test
+    public void testEmptyInput() {
+        assertTrue(componentA.deleteUsersByEmail(List.of()).isEmpty());
+        assertTrue(componentA.deleteUsersByEmail(Stream.empty()).isEmpty());
+        assertEquals(USERS + 1, remainingEmails().size());
+    }
+
+    @Test
+    public void testInvalidChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> componentA.setChunkSize(0));
+        assertThrows(IllegalArgumentException.class, () -> componentA.setChunkSize(-1));
+    }
+
+    private List<String> remainingEmails() {
+        return jdbcTemplate.queryForList("SELECT email FROM users", String.class);
+    }
+
+    private static void assertChunk(ComponentA.ChunkResult result, long offset, int size, int rowsAffected) {
+        assertTrue(result.isSuccess());
+        assertNull(result.getFailure());
+        assertEquals(offset, result.getOffset());
+        assertEquals(size, result.getSize());
+        assertEquals(rowsAffected, result.getRowsAffected());
+    }
+
+    private static String email(int i) {
+        return "user" + i + "@example.com";
+    }
+}
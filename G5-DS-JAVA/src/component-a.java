@@ -1,13 +1,43 @@
 // ComponentA.java
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 public class ComponentA {
 
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
     private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private int chunkSize;
+    private String fullChunkSql;
 
     public ComponentA(DataSource dataSource) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        setChunkSize(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Sets how many emails are deleted per IN-list statement and committed per transaction.
+     * Keep it below the database's bind-parameter limit (e.g. 1000 for Oracle IN-lists).
+     *
+     * @param chunkSize The chunk size, must be positive.
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.fullChunkSql = deleteSql(chunkSize);
     }
 
     /**
@@ -19,4 +49,116 @@ public class ComponentA {
         String sql = "DELETE FROM users WHERE email = ?";
         jdbcTemplate.update(sql, email);
     }
-}
\ No newline at end of file
+
+    /**
+     * Deletes the users with the given emails, one IN-list statement per chunk of
+     * {@code chunkSize} emails, each chunk committed in its own transaction. A failing
+     * chunk is rolled back and reported, and the remaining chunks are still purged.
+     *
+     * @param emails The emails of the users to delete.
+     * @return One result per chunk, in input order.
+     */
+    public List<ChunkResult> deleteUsersByEmail(Iterable<String> emails) {
+        return deleteUsersByEmail(emails.iterator());
+    }
+
+    /**
+     * Deletes the users with the given emails in chunks, see {@link #deleteUsersByEmail(Iterable)}.
+     * The stream is consumed lazily and closed when done.
+     *
+     * @param emails The emails of the users to delete.
+     * @return One result per chunk, in input order.
+     */
+    public List<ChunkResult> deleteUsersByEmail(Stream<String> emails) {
+        try (Stream<String> stream = emails) {
+            return deleteUsersByEmail(stream.iterator());
+        }
+    }
+
+    private List<ChunkResult> deleteUsersByEmail(Iterator<String> emails) {
+        List<ChunkResult> results = new ArrayList<>();
+        List<String> chunk = new ArrayList<>(chunkSize);
+        long offset = 0;
+        while (emails.hasNext()) {
+            chunk.add(emails.next());
+            if (chunk.size() == chunkSize) {
+                results.add(deleteChunk(offset, chunk));
+                offset += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.add(deleteChunk(offset, chunk));
+        }
+        return results;
+    }
+
+    private ChunkResult deleteChunk(long offset, List<String> chunk) {
+        // Only the trailing partial chunk needs its own statement text
+        String sql = chunk.size() == chunkSize ? fullChunkSql : deleteSql(chunk.size());
+        Object[] args = chunk.toArray();
+        long start = System.nanoTime();
+        try {
+            Integer rows = transactionTemplate.execute(status -> jdbcTemplate.update(sql, args));
+            return new ChunkResult(offset, chunk.size(), rows, System.nanoTime() - start, null);
+        } catch (DataAccessException e) {
+            return new ChunkResult(offset, chunk.size(), 0, System.nanoTime() - start, e);
+        }
+    }
+
+    private static String deleteSql(int size) {
+        return "DELETE FROM users WHERE email IN (" + String.join(", ", Collections.nCopies(size, "?")) + ")";
+    }
+
+    /**
+     * Outcome of one committed (or rolled back) chunk of a bulk delete.
+     */
+    public static final class ChunkResult {
+
+        private final long offset;
+        private final int size;
+        private final int rowsAffected;
+        private final long elapsedNanos;
+        private final DataAccessException failure;
+
+        ChunkResult(long offset, int size, int rowsAffected, long elapsedNanos, DataAccessException failure) {
+            this.offset = offset;
+            this.size = size;
+            this.rowsAffected = rowsAffected;
+            this.elapsedNanos = elapsedNanos;
+            this.failure = failure;
+        }
+
+        /** Index of the first email of this chunk in the input. */
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getRowsAffected() {
+            return rowsAffected;
+        }
+
+        /** Wall-clock time of the statement and its commit (or rollback). */
+        public long getElapsed(TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /** Emails processed per second by this chunk. */
+        public double getEmailsPerSecond() {
+            return elapsedNanos == 0 ? 0 : size * 1e9 / elapsedNanos;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        /** The exception that rolled this chunk back, or null if it was committed. */
+        public DataAccessException getFailure() {
+            return failure;
+        }
+    }
+}
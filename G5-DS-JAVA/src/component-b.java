@@ -1,15 +1,42 @@
 // ComponentB.java
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class ComponentB {
 
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    // SQL and row mapper for every non-empty column combination, indexed by User.Column.mask
+    private static final Projection[] BY_EMAIL = Projection.compileAll("email = ?");
+    private static final Projection[] BY_EMAIL_LIKE = Projection.compileAll("email LIKE ?");
+
     private JdbcTemplate jdbcTemplate;
+    private JdbcTemplate streamingJdbcTemplate;
 
     public ComponentB(DataSource dataSource) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Sets the JDBC fetch size used by the streaming and callback readers, i.e. how many
+     * rows the driver pulls per round trip. Some drivers need extra settings to honour it
+     * (MySQL streams only with {@code Integer.MIN_VALUE}, PostgreSQL only outside auto-commit).
+     *
+     * @param fetchSize The number of rows fetched per round trip.
+     */
+    public void setFetchSize(int fetchSize) {
+        streamingJdbcTemplate.setFetchSize(fetchSize);
     }
 
     /**
@@ -22,4 +49,110 @@ public class ComponentB {
         String sql = "SELECT * FROM users WHERE email = ?";
         return jdbcTemplate.queryForList(sql, email);
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves the users with the given email, selecting only the requested columns.
+     *
+     * @param email   The email of the users to retrieve.
+     * @param columns The columns to fetch; all columns when none are given.
+     *                Fields of columns that were not fetched are left null (or 0 for the id).
+     * @return The matching users (empty if none exist).
+     */
+    public List<User> fetchUsersByEmail(String email, User.Column... columns) {
+        Projection projection = BY_EMAIL[User.Column.mask(columns)];
+        return jdbcTemplate.query(projection.sql, projection.mapper, email);
+    }
+
+    /**
+     * Streams the users with the given email without buffering the result set.
+     * The stream holds an open connection and must be closed, e.g. with try-with-resources.
+     *
+     * @param email   The email of the users to retrieve.
+     * @param columns The columns to fetch; all columns when none are given.
+     * @return A lazily populated stream of the matching users.
+     */
+    public Stream<User> streamUsersByEmail(String email, User.Column... columns) {
+        Projection projection = BY_EMAIL[User.Column.mask(columns)];
+        return streamingJdbcTemplate.queryForStream(projection.sql, projection.mapper, email);
+    }
+
+    /**
+     * Streams the users whose email matches a SQL LIKE pattern, see {@link #streamUsersByEmail}.
+     *
+     * @param emailPattern The LIKE pattern, e.g. {@code "%@example.com"}.
+     * @param columns      The columns to fetch; all columns when none are given.
+     * @return A lazily populated stream of the matching users.
+     */
+    public Stream<User> streamUsersByEmailLike(String emailPattern, User.Column... columns) {
+        Projection projection = BY_EMAIL_LIKE[User.Column.mask(columns)];
+        return streamingJdbcTemplate.queryForStream(projection.sql, projection.mapper, emailPattern);
+    }
+
+    /**
+     * Passes each user with the given email to {@code action} as rows arrive,
+     * so memory use does not depend on the number of matches.
+     *
+     * @param email   The email of the users to retrieve.
+     * @param action  The callback invoked once per matching user.
+     * @param columns The columns to fetch; all columns when none are given.
+     */
+    public void forEachUserByEmail(String email, Consumer<? super User> action, User.Column... columns) {
+        forEach(BY_EMAIL[User.Column.mask(columns)], email, action);
+    }
+
+    /**
+     * Passes each user whose email matches a SQL LIKE pattern to {@code action} as rows arrive.
+     *
+     * @param emailPattern The LIKE pattern, e.g. {@code "%@example.com"}.
+     * @param action       The callback invoked once per matching user.
+     * @param columns      The columns to fetch; all columns when none are given.
+     */
+    public void forEachUserByEmailLike(String emailPattern, Consumer<? super User> action, User.Column... columns) {
+        forEach(BY_EMAIL_LIKE[User.Column.mask(columns)], emailPattern, action);
+    }
+
+    private void forEach(Projection projection, String criterion, Consumer<? super User> action) {
+        RowCallbackHandler handler = new RowCallbackHandler() {
+            private int rowNum;
+
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                action.accept(projection.mapper.mapRow(rs, rowNum++));
+            }
+        };
+        streamingJdbcTemplate.query(projection.sql, handler, criterion);
+    }
+
+    private static final class Projection {
+
+        final String sql;
+        final RowMapper<User> mapper;
+
+        private Projection(int mask, String where) {
+            StringJoiner select = new StringJoiner(", ", "SELECT ", " FROM users WHERE " + where);
+            for (User.Column column : User.Column.fromMask(mask)) {
+                select.add(column.getColumnName());
+            }
+            this.sql = select.toString();
+
+            // Columns are selected in enum order, so each field reads a fixed index
+            boolean hasId = (mask & User.Column.mask(User.Column.ID)) != 0;
+            boolean hasName = (mask & User.Column.mask(User.Column.NAME)) != 0;
+            boolean hasEmail = (mask & User.Column.mask(User.Column.EMAIL)) != 0;
+            int nameIndex = hasId ? 2 : 1;
+            int emailIndex = nameIndex + (hasName ? 1 : 0);
+            this.mapper = (rs, rowNum) -> new User(
+                    hasId ? rs.getInt(1) : 0,
+                    hasName ? rs.getString(nameIndex) : null,
+                    hasEmail ? rs.getString(emailIndex) : null);
+        }
+
+        static Projection[] compileAll(String where) {
+            Projection[] projections = new Projection[1 << User.Column.values().length];
+            for (int mask = 1; mask < projections.length; mask++) {
+                projections[mask] = new Projection(mask, where);
+            }
+            return projections;
+        }
+    }
+}
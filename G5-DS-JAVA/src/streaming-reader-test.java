@@ -0,0 +1,149 @@
+// StreamingReaderTest.java
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingReaderTest {
+
+    private static final int USERS = 50;
+
+    private ComponentB componentB;
+    private final List<Integer> fetchSizes = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        DataSource dataSource = DatabaseConfig.dataSource();
+        DatabaseConfig.createTable(dataSource);
+        componentB = new ComponentB(recordingFetchSizes(dataSource));
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("DELETE FROM users");
+        String sql = "INSERT INTO users (name, email) VALUES (?, ?)";
+        for (int i = 0; i < USERS; i++) {
+            jdbcTemplate.update(sql, "User " + i, "user" + i + "@example.com");
+        }
+        jdbcTemplate.update(sql, "Other", "other@example.org");
+    }
+
+    @Test
+    public void testStreamReturnsRowsInOrder() {
+        List<User> users;
+        try (Stream<User> stream = componentB.streamUsersByEmailLike("%@example.com")) {
+            users = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(USERS, users.size());
+        for (int i = 0; i < USERS; i++) {
+            assertEquals("User " + i, users.get(i).getName());
+            assertEquals("user" + i + "@example.com", users.get(i).getEmail());
+            if (i > 0) {
+                assertTrue(users.get(i).getId() > users.get(i - 1).getId());
+            }
+        }
+    }
+
+    @Test
+    public void testStreamWithProjection() {
+        try (Stream<User> stream = componentB.streamUsersByEmail("user7@example.com", User.Column.NAME)) {
+            List<User> users = stream.collect(Collectors.toList());
+            assertEquals(1, users.size());
+            assertEquals("User 7", users.get(0).getName());
+            assertEquals(0, users.get(0).getId());
+            assertNull(users.get(0).getEmail());
+        }
+    }
+
+    @Test
+    public void testStreamCanStopEarly() {
+        try (Stream<User> stream = componentB.streamUsersByEmailLike("%@example.com", User.Column.NAME)) {
+            List<String> names = stream.limit(3).map(User::getName).collect(Collectors.toList());
+            assertEquals(List.of("User 0", "User 1", "User 2"), names);
+        }
+    }
+
+    @Test
+    public void testForEachVisitsRowsInOrder() {
+        List<String> names = new ArrayList<>();
+        componentB.forEachUserByEmailLike("%@example.com", user -> names.add(user.getName()), User.Column.NAME);
+
+        assertEquals(USERS, names.size());
+        for (int i = 0; i < USERS; i++) {
+            assertEquals("User " + i, names.get(i));
+        }
+
+        List<User> exact = new ArrayList<>();
+        componentB.forEachUserByEmail("other@example.org", exact::add);
+        assertEquals(1, exact.size());
+        assertEquals("Other", exact.get(0).getName());
+    }
+
+    @Test
+    public void testFetchSizeIsApplied() {
+        try (Stream<User> stream = componentB.streamUsersByEmailLike("%@example.com")) {
+            assertEquals(USERS, stream.count());
+        }
+        assertEquals(List.of(ComponentB.DEFAULT_FETCH_SIZE), fetchSizes);
+
+        fetchSizes.clear();
+        componentB.setFetchSize(7);
+        componentB.forEachUserByEmailLike("%@example.com", user -> { });
+        assertEquals(List.of(7), fetchSizes);
+
+        // The buffering readers keep the driver's default
+        fetchSizes.clear();
+        assertEquals(1, componentB.fetchUsersByEmail("user1@example.com").size());
+        assertTrue(fetchSizes.isEmpty());
+    }
+
+    // Wraps the data source so that every PreparedStatement.setFetchSize call is recorded
+    private DataSource recordingFetchSizes(DataSource target) {
+        return proxy(DataSource.class, (method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection ? recordingFetchSizes((Connection) result) : result;
+        });
+    }
+
+    private Connection recordingFetchSizes(Connection target) {
+        return proxy(Connection.class, (method, args) -> {
+            Object result = invoke(target, method, args);
+            if (!(result instanceof PreparedStatement)) {
+                return result;
+            }
+            PreparedStatement statement = (PreparedStatement) result;
+            return proxy(PreparedStatement.class, (statementMethod, statementArgs) -> {
+                if (statementMethod.getName().equals("setFetchSize")) {
+                    fetchSizes.add((Integer) statementArgs[0]);
+                }
+                return invoke(statement, statementMethod, statementArgs);
+            });
+        });
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> handler.handle(method, args)));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+// BackupManifest.java
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-file state of an incremental backup, stored as a text file in the backup directory.
+ * Each line is either a live file ({@code F size mtime hash name}) or a tombstone for a
+ * file that was deleted from the source ({@code D deletedAt name}), tab separated.
+ */
+public class BackupManifest {
+
+    public static final String FILE_NAME = ".backup-manifest";
+
+    // Written first by save() and renamed over FILE_NAME; left behind if a backup is interrupted
+    static final String TEMP_FILE_NAME = FILE_NAME + ".tmp";
+
+    private static final String HEADER = "# backup-manifest v1";
+    private static final String NO_HASH = "-";
+    private static final int HASH_BUFFER_SIZE = 1024 * 1024;
+
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    /**
+     * Loads the manifest of a backup directory.
+     *
+     * @param backupPath The backup directory.
+     * @return The manifest, empty if the directory has none yet.
+     * @throws IOException If the manifest exists but cannot be read or parsed.
+     */
+    public static BackupManifest load(Path backupPath) throws IOException {
+        BackupManifest manifest = new BackupManifest();
+        Path file = backupPath.resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return manifest;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (!HEADER.equals(line)) {
+                throw new IOException("Not a backup manifest: " + file);
+            }
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("F\t")) {
+                    String[] fields = line.split("\t", 5);
+                    String hash = NO_HASH.equals(fields[3]) ? null : fields[3];
+                    manifest.entries.put(fields[4],
+                            new Entry(fields[4], Long.parseLong(fields[1]), Long.parseLong(fields[2]), hash, -1));
+                } else if (line.startsWith("D\t")) {
+                    String[] fields = line.split("\t", 3);
+                    manifest.entries.put(fields[2], new Entry(fields[2], -1, -1, null, Long.parseLong(fields[1])));
+                } else if (!line.isEmpty()) {
+                    throw new IOException("Malformed manifest line in " + file + ": " + line);
+                }
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Writes the manifest to a temporary file and moves it into place, so an interrupted
+     * backup never leaves a truncated manifest behind.
+     *
+     * @param backupPath The backup directory.
+     * @throws IOException If the manifest cannot be written.
+     */
+    public void save(Path backupPath) throws IOException {
+        Path temp = backupPath.resolve(TEMP_FILE_NAME);
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Entry entry : entries.values()) {
+                if (entry.isDeleted()) {
+                    writer.write("D\t" + entry.deletedAt + "\t" + entry.name);
+                } else {
+                    writer.write("F\t" + entry.size + "\t" + entry.modifiedTime + "\t"
+                            + (entry.hash == null ? NO_HASH : entry.hash) + "\t" + entry.name);
+                }
+                writer.newLine();
+            }
+        }
+        Files.move(temp, backupPath.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** The entry for a file name, or null if the file was never backed up. */
+    public Entry get(String name) {
+        return entries.get(name);
+    }
+
+    public Collection<Entry> entries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /** True if the file was backed up once and has since been deleted from the source. */
+    public boolean isDeleted(String name) {
+        Entry entry = entries.get(name);
+        return entry != null && entry.isDeleted();
+    }
+
+    /**
+     * True if a file in the backup directory must not be restored: the manifest itself, a
+     * manifest left half-written by an interrupted backup, or a file marked as deleted.
+     *
+     * @param name The path of the file relative to the backup directory.
+     */
+    public boolean isExcludedFromRestore(String name) {
+        return name.equals(FILE_NAME) || name.equals(TEMP_FILE_NAME) || isDeleted(name);
+    }
+
+    public void putFile(String name, long size, long modifiedTime, String hash) {
+        entries.put(name, new Entry(name, size, modifiedTime, hash, -1));
+    }
+
+    public void markDeleted(String name, long deletedAt) {
+        entries.put(name, new Entry(name, -1, -1, null, deletedAt));
+    }
+
+    /**
+     * Computes the SHA-256 of a file's content as a lowercase hex string. The file is read
+     * through a {@link FileChannel} in blocks of up to 1 MB.
+     *
+     * @param file The file to hash.
+     * @return The hex digest.
+     * @throws IOException If the file cannot be read.
+     */
+    public static String hash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(1, Math.min(channel.size(), HASH_BUFFER_SIZE)));
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String toHex(byte[] digest) {
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * State of one file in the manifest.
+     */
+    public static final class Entry {
+
+        private final String name;
+        private final long size;
+        private final long modifiedTime;
+        private final String hash;
+        private final long deletedAt;
+
+        Entry(String name, long size, long modifiedTime, String hash, long deletedAt) {
+            this.name = name;
+            this.size = size;
+            this.modifiedTime = modifiedTime;
+            this.hash = hash;
+            this.deletedAt = deletedAt;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /** Last-modified time of the source file in milliseconds since the epoch. */
+        public long getModifiedTime() {
+            return modifiedTime;
+        }
+
+        /** SHA-256 of the content, or null if hashing was not enabled for this file. */
+        public String getHash() {
+            return hash;
+        }
+
+        public boolean isDeleted() {
+            return deletedAt >= 0;
+        }
+
+        /** When the tombstone was recorded, in milliseconds since the epoch, or -1 for live files. */
+        public long getDeletedAt() {
+            return deletedAt;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+// BackupModesTest.java
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BackupModesTest {
+
+    @TempDir
+    Path dir;
+
+    private ComponentA componentA;
+    private ComponentB componentB;
+    private Path source;
+    private Path backup;
+    private Path restore;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        componentA = new ComponentA();
+        componentB = new ComponentB();
+        source = dir.resolve("source");
+        backup = dir.resolve("backup");
+        restore = dir.resolve("restore");
+
+        Files.createDirectories(source.resolve("sub/deeper"));
+        Files.write(source.resolve("file1.txt"), "Hello, World!".getBytes());
+        Files.write(source.resolve("sub/file2.txt"), "Backup and Restore Test".getBytes());
+        Files.write(source.resolve("sub/deeper/copy.txt"), "Hello, World!".getBytes());
+    }
+
+    @Test
+    public void testSnapshotsDeduplicateContent() throws IOException {
+        ComponentA.SnapshotStats first = componentA.backupSnapshot(source.toString(), backup.toString());
+        assertEquals(3, first.getFiles());
+        assertEquals(2, first.getObjectsStored(), "Identical files must be stored once");
+
+        ComponentA.SnapshotStats unchanged = componentA.backupSnapshot(source.toString(), backup.toString());
+        assertEquals(3, unchanged.getFiles());
+        assertEquals(0, unchanged.getObjectsStored());
+
+        Files.write(source.resolve("file1.txt"), "Changed".getBytes());
+        ComponentA.SnapshotStats changed = componentA.backupSnapshot(source.toString(), backup.toString());
+        assertEquals(1, changed.getObjectsStored());
+        assertEquals("Changed".length(), changed.getBytesStored());
+
+        ContentStore store = new ContentStore(backup);
+        List<String> snapshots = store.listSnapshots();
+        assertEquals(3, snapshots.size());
+        assertEquals(changed.getSnapshotId(), store.latestSnapshot());
+        store.readSnapshot(changed.getSnapshotId(), (hash, size, modifiedTime, path) ->
+                assertEquals(hash, BackupManifest.hash(store.objectPath(hash)), "Object name must match its content"));
+    }
+
+    @Test
+    public void testRestoreSnapshot() throws IOException {
+        ComponentA.SnapshotStats first = componentA.backupSnapshot(source.toString(), backup.toString());
+        Files.write(source.resolve("file1.txt"), "Changed".getBytes());
+        componentA.backupSnapshot(source.toString(), backup.toString());
+
+        // Without a snapshot ID the latest one is restored
+        componentB.restoreBackup(backup.toString(), restore.toString());
+        assertTrue(componentB.verifyRestoreDeep(source.toString(), restore.toString(), 2).isVerified());
+
+        Path older = dir.resolve("older");
+        componentB.restoreBackup(backup.toString(), first.getSnapshotId(), older.toString());
+        assertEquals("Hello, World!", new String(Files.readAllBytes(older.resolve("file1.txt"))));
+    }
+
+    @Test
+    public void testContentStoreIsRecognisedByItsMarker() throws IOException {
+        assertFalse(ContentStore.isContentStore(backup));
+        componentA.backupSnapshot(source.toString(), backup.toString());
+        assertTrue(ContentStore.isContentStore(backup));
+
+        // A plain backup of a tree that happens to contain a snapshots directory
+        Files.createDirectories(source.resolve(ContentStore.SNAPSHOTS_DIR));
+        Path plain = dir.resolve("plain");
+        componentA.backupTree(source.toString(), plain.toString(), 2, null);
+        assertFalse(ContentStore.isContentStore(plain));
+    }
+
+    @Test
+    public void testTreeBackupAndRestore() throws IOException {
+        ComponentA.BackupStats stats = componentA.backupTree(source.toString(), backup.toString(), 3, null);
+        assertEquals(3, stats.getFiles());
+
+        componentB.restoreTree(backup.toString(), restore.toString(), 3, null);
+        ComponentB.VerificationReport report = componentB.verifyRestoreDeep(source.toString(), restore.toString(), 2);
+        assertTrue(report.isVerified(), report.getMismatches().toString());
+        assertEquals(3, report.getFilesHashed());
+    }
+
+    @Test
+    public void testDeepVerificationFindsChangedContent() throws IOException {
+        componentA.backupTree(source.toString(), backup.toString(), 2, null);
+        componentB.restoreTree(backup.toString(), restore.toString(), 2, null);
+        Files.write(restore.resolve("sub/file2.txt"), "Backup and Restore Tesx".getBytes());
+        Files.delete(restore.resolve("file1.txt"));
+
+        ComponentB.VerificationReport report = componentB.verifyRestoreDeep(source.toString(), restore.toString(), 2);
+        assertFalse(report.isVerified());
+        assertEquals(2, report.getMismatches().size());
+    }
+
+    @Test
+    public void testDeepVerificationFindsExtraFileShadowingADirectory() throws IOException {
+        componentA.backupTree(source.toString(), backup.toString(), 2, null);
+        componentB.restoreTree(backup.toString(), restore.toString(), 2, null);
+        Files.createDirectories(source.resolve("empty"));
+        Files.write(restore.resolve("empty"), "not a directory".getBytes());
+
+        List<ComponentB.Mismatch> mismatches =
+                componentB.verifyRestoreDeep(source.toString(), restore.toString(), 2).getMismatches();
+        assertEquals(1, mismatches.size());
+        assertEquals("empty", mismatches.get(0).getPath());
+        assertEquals(ComponentB.MismatchKind.EXTRA, mismatches.get(0).getKind());
+    }
+
+    @Test
+    public void testIncrementalBackupCopiesOnlyChanges() throws IOException {
+        Path flat = dir.resolve("flat");
+        Files.createDirectories(flat);
+        Files.write(flat.resolve("a.txt"), "a".getBytes());
+        Files.write(flat.resolve("b.txt"), "b".getBytes());
+
+        ComponentA.IncrementalStats first = componentA.backupDirectoryIncremental(flat.toString(), backup.toString(), true);
+        assertEquals(2, first.getFilesCopied());
+
+        Files.write(flat.resolve("a.txt"), "aa".getBytes());
+        Files.delete(flat.resolve("b.txt"));
+        ComponentA.IncrementalStats second = componentA.backupDirectoryIncremental(flat.toString(), backup.toString(), true);
+        assertEquals(1, second.getFilesCopied());
+        assertEquals(1, second.getFilesDeleted());
+
+        // Touched but not modified: the stored hash avoids another copy
+        Files.setLastModifiedTime(flat.resolve("a.txt"), FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        ComponentA.IncrementalStats third = componentA.backupDirectoryIncremental(flat.toString(), backup.toString(), true);
+        assertEquals(0, third.getFilesCopied());
+        assertEquals(1, third.getFilesUnchanged());
+
+        componentB.restoreTree(backup.toString(), restore.toString(), 2, null);
+        assertTrue(componentB.verifyRestore(flat.toString(), restore.toString()), "Deleted files must not be restored");
+    }
+
+    @Test
+    public void testInterruptedManifestWriteIsNotRestored() throws IOException {
+        Path flat = dir.resolve("flat");
+        Files.createDirectories(flat);
+        Files.write(flat.resolve("a.txt"), "a".getBytes());
+        componentA.backupDirectoryIncremental(flat.toString(), backup.toString(), true);
+        Files.write(backup.resolve(BackupManifest.TEMP_FILE_NAME), "# backup-manifest v1\n".getBytes());
+
+        componentB.restoreBackup(backup.toString(), restore.toString());
+        assertTrue(componentB.verifyRestore(flat.toString(), restore.toString()));
+
+        Path tree = dir.resolve("tree");
+        componentB.restoreTree(backup.toString(), tree.toString(), 2, null);
+        assertTrue(componentB.verifyRestore(flat.toString(), tree.toString()));
+    }
+
+    @Test
+    public void testParallelBackupReportsListenerFailure() throws IOException {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> componentA.backupDirectoryParallel(source.toString(), backup.toString(), 2,
+                        (file, files, bytes) -> {
+                            throw new IllegalStateException("listener failed");
+                        }));
+        assertEquals("listener failed", e.getMessage());
+    }
+
+    @Test
+    public void testParallelBackup() throws IOException {
+        ComponentA.BackupStats stats = componentA.backupDirectoryParallel(source.toString(), backup.toString(), 2);
+
+        assertEquals(1, stats.getFiles(), "Only the top-level file is copied");
+        assertTrue(Files.exists(backup.resolve("file1.txt")));
+    }
+}
@@ -1,6 +1,14 @@
 // ComponentA.java
 import java.io.IOException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class ComponentA {
 
@@ -30,4 +38,378 @@ public class ComponentA {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Backs up a directory like {@link #backupDirectory(String, String)}, copying files
+     * concurrently on a pool of worker threads.
+     *
+     * @param sourceDir The path to the source directory.
+     * @param backupDir The path to the backup directory.
+     * @param workers   The number of files copied concurrently.
+     * @return The number of files and bytes copied and the throughput.
+     * @throws IOException If an I/O error occurs during the backup process.
+     */
+    public BackupStats backupDirectoryParallel(String sourceDir, String backupDir, int workers) throws IOException {
+        return backupDirectoryParallel(sourceDir, backupDir, workers, null);
+    }
+
+    /**
+     * Backs up a directory like {@link #backupDirectory(String, String)}, copying files
+     * concurrently on a pool of worker threads. At most {@code 2 * workers} copies are
+     * queued at a time, so the directory listing never runs far ahead of the copies.
+     * The first failed copy stops further submissions and is rethrown once the
+     * in-flight copies have finished.
+     *
+     * @param sourceDir The path to the source directory.
+     * @param backupDir The path to the backup directory.
+     * @param workers   The number of files copied concurrently.
+     * @param listener  Called after every copied file, from the worker threads; may be null.
+     * @return The number of files and bytes copied and the throughput.
+     * @throws IOException If an I/O error occurs during the backup process.
+     */
+    public BackupStats backupDirectoryParallel(String sourceDir, String backupDir, int workers,
+                                               ProgressListener listener) throws IOException {
+        Path sourcePath = Paths.get(sourceDir);
+        Path backupPath = Paths.get(backupDir);
+        Files.createDirectories(backupPath);
+
+        try (CopyPipeline pipeline = new CopyPipeline(workers, listener);
+             DirectoryStream<Path> stream = Files.newDirectoryStream(sourcePath)) {
+            for (Path file : stream) {
+                if (pipeline.failed()) {
+                    break;
+                }
+                pipeline.submit(file, backupPath.resolve(file.getFileName()));
+            }
+            return pipeline.finish();
+        }
+    }
+
+    /**
+     * Backs up a directory tree, including all subdirectories, preserving its structure.
+     * The tree is traversed with {@link Files#walkFileTree}, so it is never held in memory,
+     * and each file is handed to the copy workers as soon as it is visited, so copying
+     * overlaps with the scan of the rest of the tree.
+     *
+     * @param sourceDir The path to the source directory.
+     * @param backupDir The path to the backup directory.
+     * @param workers   The number of files copied concurrently.
+     * @param listener  Called after every copied file, from the worker threads; may be null.
+     * @return The number of files and bytes copied and the throughput.
+     * @throws IOException If an I/O error occurs during the backup process.
+     */
+    public BackupStats backupTree(String sourceDir, String backupDir, int workers, ProgressListener listener)
+            throws IOException {
+        Path sourcePath = Paths.get(sourceDir);
+        Path backupPath = Paths.get(backupDir);
+        try (CopyPipeline pipeline = new CopyPipeline(workers, listener)) {
+            Files.walkFileTree(sourcePath, new TreeCopier(sourcePath, backupPath, pipeline));
+            return pipeline.finish();
+        }
+    }
+
+    /**
+     * Backs up only the files that changed since the previous incremental backup into the
+     * same directory. Changes are detected against a {@link BackupManifest} kept in the
+     * backup directory: a file is copied when it is new, its size differs, or its
+     * modification time differs. Source files that disappeared are recorded as tombstones;
+     * their last copy is kept in the backup but is no longer restored.
+     * <p>
+     * With {@code useHash}, the SHA-256 of every copied file is stored, and a file whose
+     * modification time changed but whose size and hash did not is not copied again.
+     *
+     * @param sourceDir The path to the source directory.
+     * @param backupDir The path to the backup directory.
+     * @param useHash   Whether to store and compare content hashes.
+     * @return What was copied, skipped and deleted.
+     * @throws IOException If an I/O error occurs during the backup process.
+     */
+    public IncrementalStats backupDirectoryIncremental(String sourceDir, String backupDir, boolean useHash)
+            throws IOException {
+        Path sourcePath = Paths.get(sourceDir);
+        Path backupPath = Paths.get(backupDir);
+        Files.createDirectories(backupPath);
+        BackupManifest manifest = BackupManifest.load(backupPath);
+
+        long copied = 0;
+        long unchanged = 0;
+        long bytesCopied = 0;
+        Set<String> seen = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(sourcePath)) {
+            for (Path file : stream) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+                String name = file.getFileName().toString();
+                seen.add(name);
+                long size = attributes.size();
+                long modifiedTime = attributes.lastModifiedTime().toMillis();
+                Path targetFile = backupPath.resolve(name);
+
+                BackupManifest.Entry previous = manifest.get(name);
+                boolean present = previous != null && !previous.isDeleted() && Files.exists(targetFile);
+                if (present && previous.getSize() == size && previous.getModifiedTime() == modifiedTime) {
+                    unchanged++;
+                    continue;
+                }
+                String hash = useHash ? BackupManifest.hash(file) : null;
+                if (present && previous.getSize() == size && hash != null && hash.equals(previous.getHash())) {
+                    // Touched but not modified: refresh the timestamp only
+                    manifest.putFile(name, size, modifiedTime, hash);
+                    unchanged++;
+                    continue;
+                }
+
+                Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
+                manifest.putFile(name, size, modifiedTime, hash);
+                copied++;
+                bytesCopied += size;
+            }
+        }
+
+        long deleted = 0;
+        long now = System.currentTimeMillis();
+        List<String> missing = new ArrayList<>();
+        for (BackupManifest.Entry entry : manifest.entries()) {
+            if (!entry.isDeleted() && !seen.contains(entry.getName())) {
+                missing.add(entry.getName());
+            }
+        }
+        for (String name : missing) {
+            manifest.markDeleted(name, now);
+            deleted++;
+        }
+
+        manifest.save(backupPath);
+        return new IncrementalStats(copied, unchanged, deleted, bytesCopied);
+    }
+
+    /**
+     * Backs up a directory tree into a {@link ContentStore}: each distinct file content is
+     * stored once under its hash, and a new snapshot manifest records which content every
+     * path had. Content already in the store, from this or any earlier snapshot, is not
+     * copied again. Files whose size and modification time match the latest snapshot reuse
+     * its hash and are not even read.
+     *
+     * @param sourceDir The path to the source directory.
+     * @param backupDir The path to the content store.
+     * @return The new snapshot's ID and how much content was actually copied.
+     * @throws IOException If an I/O error occurs during the backup process.
+     */
+    public SnapshotStats backupSnapshot(String sourceDir, String backupDir) throws IOException {
+        Path sourcePath = Paths.get(sourceDir);
+        ContentStore store = new ContentStore(Paths.get(backupDir));
+
+        Map<String, String[]> previous = new HashMap<>();
+        String latest = store.latestSnapshot();
+        if (latest != null) {
+            store.readSnapshot(latest, (hash, size, modifiedTime, path) ->
+                    previous.put(path, new String[] {hash, Long.toString(size), Long.toString(modifiedTime)}));
+        }
+
+        long[] totals = new long[4]; // files, bytes, objects stored, bytes stored
+        try (ContentStore.SnapshotWriter snapshot = store.newSnapshot()) {
+            Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (!attrs.isRegularFile()) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    StringBuilder path = new StringBuilder();
+                    for (Path element : sourcePath.relativize(file)) {
+                        path.append(path.length() == 0 ? "" : "/").append(element);
+                    }
+                    long size = attrs.size();
+                    long modifiedTime = attrs.lastModifiedTime().toMillis();
+
+                    String[] known = previous.get(path.toString());
+                    String hash;
+                    if (known != null && Long.parseLong(known[1]) == size
+                            && Long.parseLong(known[2]) == modifiedTime && Files.exists(store.objectPath(known[0]))) {
+                        hash = known[0];
+                    } else {
+                        // Hashed while it is copied, so a new or changed file is read only once
+                        ContentStore.StoredObject stored = store.store(file);
+                        hash = stored.getHash();
+                        if (stored.isCopied()) {
+                            totals[2]++;
+                            totals[3] += size;
+                        }
+                    }
+                    snapshot.add(hash, size, modifiedTime, path.toString());
+                    totals[0]++;
+                    totals[1] += size;
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            String id = snapshot.commit();
+            return new SnapshotStats(id, totals[0], totals[1], totals[2], totals[3]);
+        }
+    }
+
+    /**
+     * Mirrors a directory tree into another directory through a {@link CopyPipeline}.
+     * Target directories are created before any of their files are queued.
+     */
+    static class TreeCopier extends SimpleFileVisitor<Path> {
+
+        private final Path sourceRoot;
+        private final Path targetRoot;
+        private final CopyPipeline pipeline;
+
+        TreeCopier(Path sourceRoot, Path targetRoot, CopyPipeline pipeline) {
+            this.sourceRoot = sourceRoot;
+            this.targetRoot = targetRoot;
+            this.pipeline = pipeline;
+        }
+
+        /** Whether a file or directory should be left out of the copy. */
+        boolean skip(Path relative) {
+            return false;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+            Files.createDirectories(targetRoot.resolve(sourceRoot.relativize(dir).toString()));
+            return pipeline.failed() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            Path relative = sourceRoot.relativize(file);
+            if (!skip(relative)) {
+                pipeline.submit(file, targetRoot.resolve(relative.toString()));
+            }
+            return pipeline.failed() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+        }
+    }
+
+    /**
+     * Receives progress updates from a parallel backup or restore. Implementations must be thread-safe.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * @param file        The source file that was just copied.
+         * @param filesCopied The number of files copied so far.
+         * @param bytesCopied The number of bytes copied so far.
+         */
+        void fileCopied(Path file, long filesCopied, long bytesCopied);
+    }
+
+    /**
+     * Totals and throughput of a completed backup.
+     */
+    public static final class BackupStats {
+
+        private final long files;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        BackupStats(long files, long bytes, long elapsedNanos) {
+            this.files = files;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getFiles() {
+            return files;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsed(TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public double getFilesPerSecond() {
+            return elapsedNanos == 0 ? 0 : files * 1e9 / elapsedNanos;
+        }
+
+        public double getMegabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos / (1024 * 1024);
+        }
+    }
+
+    /**
+     * Outcome of an incremental backup.
+     */
+    public static final class IncrementalStats {
+
+        private final long filesCopied;
+        private final long filesUnchanged;
+        private final long filesDeleted;
+        private final long bytesCopied;
+
+        IncrementalStats(long filesCopied, long filesUnchanged, long filesDeleted, long bytesCopied) {
+            this.filesCopied = filesCopied;
+            this.filesUnchanged = filesUnchanged;
+            this.filesDeleted = filesDeleted;
+            this.bytesCopied = bytesCopied;
+        }
+
+        /** New or modified files that were copied. */
+        public long getFilesCopied() {
+            return filesCopied;
+        }
+
+        public long getFilesUnchanged() {
+            return filesUnchanged;
+        }
+
+        /** Files newly recorded as tombstones by this run. */
+        public long getFilesDeleted() {
+            return filesDeleted;
+        }
+
+        public long getBytesCopied() {
+            return bytesCopied;
+        }
+    }
+
+    /**
+     * Outcome of a snapshot backup into a {@link ContentStore}.
+     */
+    public static final class SnapshotStats {
+
+        private final String snapshotId;
+        private final long files;
+        private final long bytes;
+        private final long objectsStored;
+        private final long bytesStored;
+
+        SnapshotStats(String snapshotId, long files, long bytes, long objectsStored, long bytesStored) {
+            this.snapshotId = snapshotId;
+            this.files = files;
+            this.bytes = bytes;
+            this.objectsStored = objectsStored;
+            this.bytesStored = bytesStored;
+        }
+
+        public String getSnapshotId() {
+            return snapshotId;
+        }
+
+        /** Files recorded in the snapshot. */
+        public long getFiles() {
+            return files;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /** New objects copied into the store; the other files were deduplicated. */
+        public long getObjectsStored() {
+            return objectsStored;
+        }
+
+        public long getBytesStored() {
+            return bytesStored;
+        }
+    }
+}
@@ -1,8 +1,17 @@
 
 // ComponentB.java
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ComponentB {
 
@@ -18,14 +27,30 @@ public class ComponentB {
         Path backupPath = Paths.get(backupDir);
         Path restorePath = Paths.get(restoreDir);
 
+        // A content store holds no plain files; restore its latest snapshot instead
+        if (ContentStore.isContentStore(backupPath)) {
+            String latest = new ContentStore(backupPath).latestSnapshot();
+            if (latest != null) {
+                restoreBackup(backupDir, latest, restoreDir);
+            }
+            return;
+        }
+
         // Create the restore directory if it doesn't exist
         if (!Files.exists(restorePath)) {
             Files.createDirectories(restorePath);
         }
 
+        // Skip the incremental backup manifest and files it marks as deleted
+        BackupManifest manifest = BackupManifest.load(backupPath);
+
         // Copy all files from the backup directory to the restore directory
         try (DirectoryStream<Path> stream = Files.newDirectoryStream(backupPath)) {
             for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (manifest.isExcludedFromRestore(name)) {
+                    continue;
+                }
                 if (Files.isRegularFile(file)) {
                     Path targetFile = restorePath.resolve(file.getFileName());
                     Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
@@ -34,6 +59,59 @@ public class ComponentB {
         }
     }
 
+    /**
+     * Restores one snapshot of a {@link ContentStore} written by {@link ComponentA#backupSnapshot},
+     * recreating every file of the snapshot from the stored content.
+     *
+     * @param backupDir  The path to the content store.
+     * @param snapshotId The snapshot to restore, see {@link ContentStore#listSnapshots()}.
+     * @param restoreDir The path to the restore directory.
+     * @throws IOException If the snapshot or one of its objects cannot be read, or a file cannot be written.
+     */
+    public void restoreBackup(String backupDir, String snapshotId, String restoreDir) throws IOException {
+        ContentStore store = new ContentStore(Paths.get(backupDir));
+        Path restorePath = Paths.get(restoreDir);
+        Files.createDirectories(restorePath);
+        store.readSnapshot(snapshotId, (hash, size, modifiedTime, path) -> {
+            Path targetFile = restorePath.resolve(path).normalize();
+            if (!targetFile.startsWith(restorePath.normalize())) {
+                throw new IOException("Snapshot path escapes the restore directory: " + path);
+            }
+            Files.createDirectories(targetFile.getParent());
+            Files.copy(store.objectPath(hash), targetFile, StandardCopyOption.REPLACE_EXISTING);
+        });
+    }
+
+    /**
+     * Restores a backup made with {@link ComponentA#backupTree}, recreating all
+     * subdirectories. Like {@link ComponentA#backupTree}, the tree is walked as a stream
+     * and files are copied by {@code workers} threads while the walk continues.
+     * The incremental backup manifest and files it marks as deleted are not restored.
+     *
+     * @param backupDir  The path to the backup directory.
+     * @param restoreDir The path to the restore directory.
+     * @param workers    The number of files copied concurrently.
+     * @param listener   Called after every restored file, from the worker threads; may be null.
+     * @return The number of files and bytes restored and the throughput.
+     * @throws IOException If an I/O error occurs during the restore process.
+     */
+    public ComponentA.BackupStats restoreTree(String backupDir, String restoreDir, int workers,
+                                              ComponentA.ProgressListener listener) throws IOException {
+        Path backupPath = Paths.get(backupDir);
+        Path restorePath = Paths.get(restoreDir);
+        BackupManifest manifest = BackupManifest.load(backupPath);
+
+        try (CopyPipeline pipeline = new CopyPipeline(workers, listener)) {
+            Files.walkFileTree(backupPath, new ComponentA.TreeCopier(backupPath, restorePath, pipeline) {
+                @Override
+                boolean skip(Path relative) {
+                    return manifest.isExcludedFromRestore(relative.toString());
+                }
+            });
+            return pipeline.finish();
+        }
+    }
+
     /**
      * Verifies that the files in the restore directory match the files in the
      * source directory.
@@ -70,4 +148,168 @@ public class ComponentB {
         // Verify that the files match
         return sourceFiles.equals(restoreFiles);
     }
-}
\ No newline at end of file
+
+    /**
+     * Verifies a restored tree against its source by content, not only by name. Every file
+     * of both trees is visited once while walking them, without collecting the names into
+     * sets. Sizes are compared first; files of equal size are then compared by SHA-256,
+     * hashed on {@code workers} threads.
+     *
+     * @param sourceDir  The path to the source directory.
+     * @param restoreDir The path to the restore directory.
+     * @param workers    The number of files hashed concurrently.
+     * @return Every file that is missing, unexpected, or differs in size or content.
+     * @throws IOException If an I/O error occurs during the verification process.
+     */
+    public VerificationReport verifyRestoreDeep(String sourceDir, String restoreDir, int workers)
+            throws IOException {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        Path sourcePath = Paths.get(sourceDir);
+        Path restorePath = Paths.get(restoreDir);
+
+        Queue<Mismatch> mismatches = new ConcurrentLinkedQueue<>();
+        LongAdder compared = new LongAdder();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        Semaphore inFlight = new Semaphore(workers * 2);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    String relative = sourcePath.relativize(file).toString();
+                    Path restored = restorePath.resolve(relative);
+                    if (!Files.isRegularFile(restored)) {
+                        mismatches.add(new Mismatch(relative, MismatchKind.MISSING));
+                        return FileVisitResult.CONTINUE;
+                    }
+                    if (Files.size(restored) != attrs.size()) {
+                        mismatches.add(new Mismatch(relative, MismatchKind.SIZE));
+                        return FileVisitResult.CONTINUE;
+                    }
+                    try {
+                        inFlight.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Verification interrupted");
+                    }
+                    pool.execute(() -> {
+                        try {
+                            if (!BackupManifest.hash(file).equals(BackupManifest.hash(restored))) {
+                                mismatches.add(new Mismatch(relative, MismatchKind.CONTENT));
+                            }
+                            compared.increment();
+                        } catch (IOException e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                    return failure.get() == null ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+                }
+            });
+
+            // Files present only in the restore are found by a second walk, checking the source side
+            if (failure.get() == null) {
+                Files.walkFileTree(restorePath, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        String relative = restorePath.relativize(file).toString();
+                        // A directory of the same name does not stand in for a source file
+                        if (!Files.isRegularFile(sourcePath.resolve(relative))) {
+                            mismatches.add(new Mismatch(relative, MismatchKind.EXTRA));
+                        }
+                        return failure.get() == null ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+                    }
+                });
+            }
+
+            if (failure.get() == null) {
+                pool.shutdown();
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Verification interrupted");
+        } finally {
+            // Drops the hashes still queued if one of them failed
+            pool.shutdownNow();
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        List<Mismatch> sorted = new ArrayList<>(mismatches);
+        sorted.sort(Comparator.comparing(Mismatch::getPath));
+        return new VerificationReport(compared.sum(), sorted);
+    }
+
+    /**
+     * How a restored file differs from its source.
+     */
+    public enum MismatchKind {
+        /** The file exists in the source but not in the restore. */
+        MISSING,
+        /** The file exists in the restore but not in the source. */
+        EXTRA,
+        SIZE,
+        CONTENT
+    }
+
+    /**
+     * A file that did not verify.
+     */
+    public static final class Mismatch {
+
+        private final String path;
+        private final MismatchKind kind;
+
+        Mismatch(String path, MismatchKind kind) {
+            this.path = path;
+            this.kind = kind;
+        }
+
+        /** The path relative to the source and restore directories. */
+        public String getPath() {
+            return path;
+        }
+
+        public MismatchKind getKind() {
+            return kind;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + path;
+        }
+    }
+
+    /**
+     * Result of {@link #verifyRestoreDeep}.
+     */
+    public static final class VerificationReport {
+
+        private final long filesHashed;
+        private final List<Mismatch> mismatches;
+
+        VerificationReport(long filesHashed, List<Mismatch> mismatches) {
+            this.filesHashed = filesHashed;
+            this.mismatches = Collections.unmodifiableList(mismatches);
+        }
+
+        public boolean isVerified() {
+            return mismatches.isEmpty();
+        }
+
+        /** The number of file pairs of equal size whose content was compared. */
+        public long getFilesHashed() {
+            return filesHashed;
+        }
+
+        /** All mismatching files, sorted by path. */
+        public List<Mismatch> getMismatches() {
+            return mismatches;
+        }
+    }
+}
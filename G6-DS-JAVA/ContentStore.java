@@ -0,0 +1,268 @@
+// ContentStore.java
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Content-addressed backup target. Every distinct file content is stored once under
+ * {@code objects/<2 hex>/<sha-256>}, and each backup run writes a snapshot manifest
+ * {@code snapshots/<id>.snapshot} listing {@code hash size mtime path} per file, tab separated.
+ * Objects and snapshots are written to temporary files and moved into place, so readers
+ * never see partial ones. A {@code content-store} marker file in the root identifies the
+ * directory as a content store, so a plain backup that merely contains a {@code snapshots}
+ * directory is not mistaken for one.
+ */
+public class ContentStore {
+
+    public static final String OBJECTS_DIR = "objects";
+    public static final String SNAPSHOTS_DIR = "snapshots";
+
+    private static final String MARKER_FILE = "content-store";
+    private static final String MARKER = "# content-store v1";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String HEADER = "# snapshot v1";
+    private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+    private static final DateTimeFormatter SNAPSHOT_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final Path root;
+
+    public ContentStore(Path root) {
+        this.root = root;
+    }
+
+    /** True if the directory holds a content store rather than a plain file-by-file backup. */
+    public static boolean isContentStore(Path dir) {
+        Path marker = dir.resolve(MARKER_FILE);
+        if (!Files.isRegularFile(marker) || !Files.isDirectory(dir.resolve(OBJECTS_DIR))) {
+            return false;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(marker, StandardCharsets.UTF_8)) {
+            return MARKER.equals(reader.readLine());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Creates the object directory and the marker file, if this is a new store. */
+    private void initialize() throws IOException {
+        Files.createDirectories(root.resolve(OBJECTS_DIR));
+        Path marker = root.resolve(MARKER_FILE);
+        if (Files.exists(marker)) {
+            return;
+        }
+        Path temp = Files.createTempFile(root, MARKER_FILE, ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(MARKER);
+                writer.newLine();
+            }
+            Files.move(temp, marker, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public Path objectPath(String hash) {
+        return root.resolve(OBJECTS_DIR).resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Copies a file into the store, computing its SHA-256 from the same buffer that is
+     * written, and files the copy under that hash unless an object with it already exists.
+     * The file is read once, and the object always matches its name even if the file
+     * changes while it is being copied.
+     *
+     * @param file The file to store.
+     * @return The hash of the stored content and whether it was new to the store.
+     * @throws IOException If the file cannot be read or the object cannot be written.
+     */
+    public StoredObject store(Path file) throws IOException {
+        initialize();
+        Path temp = Files.createTempFile(root.resolve(OBJECTS_DIR), "store", ".tmp");
+        try {
+            MessageDigest digest = BackupManifest.newDigest();
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(1, Math.min(in.size(), COPY_BUFFER_SIZE)));
+                while (in.read(buffer) >= 0) {
+                    buffer.flip();
+                    digest.update(buffer.array(), 0, buffer.limit());
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            String hash = BackupManifest.toHex(digest.digest());
+            Path object = objectPath(hash);
+            if (Files.exists(object)) {
+                return new StoredObject(hash, false);
+            }
+            Files.createDirectories(object.getParent());
+            Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE);
+            return new StoredObject(hash, true);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /** The IDs of all snapshots, oldest first. */
+    public List<String> listSnapshots() throws IOException {
+        List<String> ids = new ArrayList<>();
+        Path snapshots = root.resolve(SNAPSHOTS_DIR);
+        if (!Files.isDirectory(snapshots)) {
+            return ids;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(snapshots, "*" + SNAPSHOT_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                ids.add(name.substring(0, name.length() - SNAPSHOT_SUFFIX.length()));
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /** The ID of the newest snapshot, or null if there is none. */
+    public String latestSnapshot() throws IOException {
+        List<String> ids = listSnapshots();
+        return ids.isEmpty() ? null : ids.get(ids.size() - 1);
+    }
+
+    /**
+     * Reads a snapshot manifest line by line.
+     *
+     * @param snapshotId The snapshot to read.
+     * @param visitor    Called once per file in the snapshot.
+     * @throws IOException If the snapshot does not exist or cannot be read.
+     */
+    public void readSnapshot(String snapshotId, SnapshotVisitor visitor) throws IOException {
+        Path file = root.resolve(SNAPSHOTS_DIR).resolve(snapshotId + SNAPSHOT_SUFFIX);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (!HEADER.equals(line)) {
+                throw new IOException("Not a snapshot manifest: " + file);
+            }
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 4);
+                if (fields.length != 4) {
+                    throw new IOException("Malformed snapshot line in " + file + ": " + line);
+                }
+                visitor.visit(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3]);
+            }
+        }
+    }
+
+    /**
+     * Starts a new snapshot; entries are streamed to disk as they are added.
+     */
+    public SnapshotWriter newSnapshot() throws IOException {
+        initialize();
+        Path snapshots = root.resolve(SNAPSHOTS_DIR);
+        Files.createDirectories(snapshots);
+        return new SnapshotWriter(snapshots);
+    }
+
+    /**
+     * Receives the entries of a snapshot manifest.
+     */
+    @FunctionalInterface
+    public interface SnapshotVisitor {
+
+        /**
+         * @param hash         The SHA-256 of the file content.
+         * @param size         The file size in bytes.
+         * @param modifiedTime The source file's last-modified time in milliseconds since the epoch.
+         * @param path         The path relative to the backed up directory, with {@code /} separators.
+         */
+        void visit(String hash, long size, long modifiedTime, String path) throws IOException;
+    }
+
+    /**
+     * Outcome of {@link #store}.
+     */
+    public static final class StoredObject {
+
+        private final String hash;
+        private final boolean copied;
+
+        StoredObject(String hash, boolean copied) {
+            this.hash = hash;
+            this.copied = copied;
+        }
+
+        /** The SHA-256 of the content that was read. */
+        public String getHash() {
+            return hash;
+        }
+
+        /** True if the content was new, false if an object with its hash already existed. */
+        public boolean isCopied() {
+            return copied;
+        }
+    }
+
+    /**
+     * Writes a snapshot manifest to a temporary file until it is committed.
+     */
+    public static final class SnapshotWriter implements AutoCloseable {
+
+        private final Path snapshots;
+        private final Path temp;
+        private final BufferedWriter writer;
+        private boolean committed;
+
+        private SnapshotWriter(Path snapshots) throws IOException {
+            this.snapshots = snapshots;
+            this.temp = Files.createTempFile(snapshots, "snapshot", ".tmp");
+            this.writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8);
+            writer.write(HEADER);
+            writer.newLine();
+        }
+
+        public void add(String hash, long size, long modifiedTime, String path) throws IOException {
+            writer.write(hash + "\t" + size + "\t" + modifiedTime + "\t" + path);
+            writer.newLine();
+        }
+
+        /**
+         * Publishes the snapshot under a new ID derived from the current time.
+         *
+         * @return The snapshot ID.
+         */
+        public String commit() throws IOException {
+            writer.close();
+            String base = ZonedDateTime.now(ZoneOffset.UTC).format(SNAPSHOT_ID);
+            String id = base;
+            for (int n = 1; ; n++) {
+                try {
+                    // A plain move fails instead of replacing an existing snapshot with the same ID
+                    Files.move(temp, snapshots.resolve(id + SNAPSHOT_SUFFIX));
+                    committed = true;
+                    return id;
+                } catch (FileAlreadyExistsException e) {
+                    id = base + "-" + n;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+            if (!committed) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
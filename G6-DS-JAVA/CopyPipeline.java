@@ -0,0 +1,106 @@
+// CopyPipeline.java
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Copies files on a pool of worker threads while the caller keeps producing them.
+ * At most {@code 2 * workers} copies are queued at a time, so a directory scan feeding
+ * the pipeline never runs far ahead of the copies. The first failed copy is remembered
+ * and rethrown by {@link #finish()}.
+ */
+final class CopyPipeline implements AutoCloseable {
+
+    private final ExecutorService pool;
+    private final Semaphore inFlight;
+    private final ComponentA.ProgressListener listener;
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final long start = System.nanoTime();
+
+    CopyPipeline(int workers, ComponentA.ProgressListener listener) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        this.pool = Executors.newFixedThreadPool(workers);
+        this.inFlight = new Semaphore(workers * 2);
+        this.listener = listener;
+    }
+
+    /** True once a copy has failed; producers should stop submitting. */
+    boolean failed() {
+        return failure.get() != null;
+    }
+
+    /**
+     * Queues a copy of {@code source} to {@code target}, blocking while the queue is full.
+     * Sources that are not regular files are skipped by the worker.
+     */
+    void submit(Path source, Path target) throws InterruptedIOException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Copy interrupted");
+        }
+        pool.execute(() -> {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+                    files.increment();
+                    bytes.add(attributes.size());
+                    if (listener != null) {
+                        listener.fileCopied(source, files.sum(), bytes.sum());
+                    }
+                }
+            } catch (Throwable e) {
+                // Includes unchecked failures (e.g. from the listener), which would otherwise vanish with the task
+                failure.compareAndSet(null, e);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Waits for all queued copies to complete.
+     *
+     * @return The number of files and bytes copied and the throughput.
+     * @throws IOException The first copy failure, if any; a failure that was not an
+     *                     {@link IOException} is rethrown as it was.
+     */
+    ComponentA.BackupStats finish() throws IOException {
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Copy interrupted");
+        }
+        Throwable first = failure.get();
+        if (first instanceof IOException) {
+            throw (IOException) first;
+        }
+        if (first instanceof RuntimeException) {
+            throw (RuntimeException) first;
+        }
+        if (first != null) {
+            throw (Error) first;
+        }
+        return new ComponentA.BackupStats(files.sum(), bytes.sum(), System.nanoTime() - start);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,260 @@
+// ChunkedGcmTest.java
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import javax.crypto.AEADBadTagException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkedGcmTest {
+
+    private static final String SECRET_KEY = "ThisIsASecretKey"; // 16 characters for AES
+    private static final int CHUNK_SIZE = 1024;
+    private static final int PBKDF2_ITERATIONS = 1000; // low, to keep the tests fast
+
+    @TempDir
+    Path dir;
+
+    private ComponentA componentA;
+    private ComponentB componentB;
+    private Path original;
+    private Path encrypted;
+    private Path decrypted;
+
+    @BeforeEach
+    public void setUp() {
+        componentA = new ComponentA();
+        componentB = new ComponentB();
+        original = dir.resolve("original.bin");
+        encrypted = dir.resolve("encrypted.bin");
+        decrypted = dir.resolve("decrypted.bin");
+    }
+
+    @Test
+    public void testRoundTripAtChunkBoundaries() throws IOException, GeneralSecurityException {
+        for (int size : new int[] {0, 1, CHUNK_SIZE - 1, CHUNK_SIZE, CHUNK_SIZE + 1, 3 * CHUNK_SIZE + 17}) {
+            byte[] data = writeOriginal(size);
+            componentA.encryptFileGcm(original.toString(), encrypted.toString(), SECRET_KEY, CHUNK_SIZE);
+            componentB.decryptFileGcm(encrypted.toString(), decrypted.toString(), SECRET_KEY);
+            assertArrayEquals(data, Files.readAllBytes(decrypted), "Round trip failed for " + size + " bytes");
+        }
+    }
+
+    @Test
+    public void testParallelRoundTrip() throws IOException, GeneralSecurityException {
+        byte[] data = writeOriginal(50 * CHUNK_SIZE + 5);
+
+        componentA.encryptFileParallel(original.toString(), encrypted.toString(), SECRET_KEY, CHUNK_SIZE, 4);
+        componentB.decryptFileGcm(encrypted.toString(), decrypted.toString(), SECRET_KEY);
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+
+        componentA.encryptFileGcm(original.toString(), encrypted.toString(), SECRET_KEY, CHUNK_SIZE);
+        componentB.decryptFileParallel(encrypted.toString(), decrypted.toString(), SECRET_KEY, 3);
+        assertTrue(componentB.verifyDecryption(original.toString(), decrypted.toString()));
+    }
+
+    @Test
+    public void testParallelWorkersAreReused() throws IOException, GeneralSecurityException {
+        byte[] data = writeOriginal(50 * CHUNK_SIZE);
+        for (int i = 0; i < 5; i++) {
+            componentA.encryptFileParallel(original.toString(), encrypted.toString(), SECRET_KEY, CHUNK_SIZE, 8);
+            componentB.decryptFileParallel(encrypted.toString(), decrypted.toString(), SECRET_KEY, 8);
+            assertArrayEquals(data, Files.readAllBytes(decrypted));
+        }
+
+        long threads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("chunked-gcm-worker-"))
+                .count();
+        assertTrue(threads <= ChunkedGcm.WORKER_THREADS, "Worker threads and their ciphers must be reused, found " + threads);
+    }
+
+    @Test
+    public void testTamperedChunkFailsAuthentication() throws IOException, GeneralSecurityException {
+        writeOriginal(4 * CHUNK_SIZE);
+        componentA.encryptFileGcm(original.toString(), encrypted.toString(), SECRET_KEY, CHUNK_SIZE);
+        byte[] bytes = Files.readAllBytes(encrypted);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(encrypted, bytes);
+
+        assertThrows(AEADBadTagException.class,
+                () -> componentB.decryptFileGcm(encrypted.toString(), decrypted.toString(), SECRET_KEY));
+        assertFalse(Files.exists(decrypted), "Partial output must be deleted");
+        assertThrows(AEADBadTagException.class,
+                () -> componentB.decryptFileParallel(encrypted.toString(), decrypted.toString(), SECRET_KEY, 2));
+        assertFalse(Files.exists(decrypted), "Partial output must be deleted");
+    }
+
+    @Test
+    public void testTamperedHeaderFailsAuthentication() throws IOException, GeneralSecurityException {
+        writeOriginal(2 * CHUNK_SIZE);
+        componentA.encryptFileGcm(original.toString(), encrypted.toString(), SECRET_KEY, CHUNK_SIZE);
+        byte[] bytes = Files.readAllBytes(encrypted);
+        bytes[10] ^= 1; // inside the base nonce, which every chunk authenticates
+        Files.write(encrypted, bytes);
+
+        assertThrows(AEADBadTagException.class,
+                () -> componentB.decryptFileGcm(encrypted.toString(), decrypted.toString(), SECRET_KEY));
+    }
+
+    @Test
+    public void testDroppedFinalChunkIsDetected() throws IOException, GeneralSecurityException {
+        writeOriginal(3 * CHUNK_SIZE);
+        componentA.encryptFileGcm(original.toString(), encrypted.toString(), SECRET_KEY, CHUNK_SIZE);
+        truncate(encrypted, Files.size(encrypted) - (CHUNK_SIZE + ChunkedGcm.TAG_LENGTH));
+
+        // The new last chunk was not encrypted as the final one
+        assertThrows(AEADBadTagException.class,
+                () -> componentB.decryptFileGcm(encrypted.toString(), decrypted.toString(), SECRET_KEY));
+    }
+
+    @Test
+    public void testTruncatedFileIsRejected() throws IOException, GeneralSecurityException {
+        writeOriginal(3 * CHUNK_SIZE);
+        componentA.encryptFileGcm(original.toString(), encrypted.toString(), SECRET_KEY, CHUNK_SIZE);
+        long size = Files.size(encrypted);
+        for (long length : new long[] {size - 1, size - CHUNK_SIZE, 30, 3}) {
+            truncate(encrypted, length);
+            assertThrows(Exception.class,
+                    () -> componentB.decryptFileGcm(encrypted.toString(), decrypted.toString(), SECRET_KEY),
+                    "Truncation to " + length + " bytes was not detected");
+            assertFalse(Files.exists(decrypted));
+        }
+    }
+
+    @Test
+    public void testReorderedChunksFailAuthentication() throws IOException, GeneralSecurityException {
+        writeOriginal(3 * CHUNK_SIZE);
+        componentA.encryptFileGcm(original.toString(), encrypted.toString(), SECRET_KEY, CHUNK_SIZE);
+        byte[] bytes = Files.readAllBytes(encrypted);
+        int stride = CHUNK_SIZE + ChunkedGcm.TAG_LENGTH;
+        int first = bytes.length - 3 * stride;
+        byte[] chunk0 = Arrays.copyOfRange(bytes, first, first + stride);
+        System.arraycopy(bytes, first + stride, bytes, first, stride);
+        System.arraycopy(chunk0, 0, bytes, first + stride, stride);
+        Files.write(encrypted, bytes);
+
+        assertThrows(AEADBadTagException.class,
+                () -> componentB.decryptFileGcm(encrypted.toString(), decrypted.toString(), SECRET_KEY));
+    }
+
+    @Test
+    public void testWrongKeyFailsAuthentication() throws IOException, GeneralSecurityException {
+        writeOriginal(100);
+        componentA.encryptFileGcm(original.toString(), encrypted.toString(), SECRET_KEY, CHUNK_SIZE);
+
+        assertThrows(AEADBadTagException.class,
+                () -> componentB.decryptFileGcm(encrypted.toString(), decrypted.toString(), "AnotherSecretKey"));
+    }
+
+    @Test
+    public void testCorruptChunkSizeIsRejected() throws IOException, GeneralSecurityException {
+        writeOriginal(100);
+        componentA.encryptFileGcm(original.toString(), encrypted.toString(), SECRET_KEY, CHUNK_SIZE);
+        byte[] bytes = Files.readAllBytes(encrypted);
+        for (int chunkSize : new int[] {0, -1, ChunkedGcm.MAX_CHUNK_SIZE + 1, Integer.MAX_VALUE}) {
+            ByteBuffer.wrap(bytes).putInt(5, chunkSize); // after the magic number and version
+            Files.write(encrypted, bytes);
+            assertThrows(IOException.class,
+                    () -> componentB.decryptFileGcm(encrypted.toString(), decrypted.toString(), SECRET_KEY));
+            assertThrows(IOException.class,
+                    () -> componentB.decryptRange(encrypted.toString(), SECRET_KEY, 0, 10));
+        }
+    }
+
+    @Test
+    public void testRangeRead() throws IOException, GeneralSecurityException {
+        byte[] data = writeOriginal(5 * CHUNK_SIZE + 300);
+        componentA.encryptFileGcm(original.toString(), encrypted.toString(), SECRET_KEY, CHUNK_SIZE);
+
+        long[][] ranges = {{0, 10}, {CHUNK_SIZE - 5, 10}, {CHUNK_SIZE, CHUNK_SIZE}, {100, 3 * CHUNK_SIZE},
+                {data.length - 1, 1}, {0, data.length}};
+        for (long[] range : ranges) {
+            int offset = (int) range[0];
+            int length = (int) range[1];
+            assertArrayEquals(Arrays.copyOfRange(data, offset, offset + length),
+                    componentB.decryptRange(encrypted.toString(), SECRET_KEY, offset, length),
+                    "Range " + offset + "+" + length);
+        }
+        assertArrayEquals(Arrays.copyOfRange(data, data.length - 50, data.length),
+                componentB.decryptRange(encrypted.toString(), SECRET_KEY, data.length - 50, 200));
+        assertEquals(0, componentB.decryptRange(encrypted.toString(), SECRET_KEY, data.length + 10, 5).length);
+    }
+
+    @Test
+    public void testRangeReadOfTamperedChunk() throws IOException, GeneralSecurityException {
+        byte[] data = writeOriginal(4 * CHUNK_SIZE);
+        componentA.encryptFileGcm(original.toString(), encrypted.toString(), SECRET_KEY, CHUNK_SIZE);
+        byte[] bytes = Files.readAllBytes(encrypted);
+        bytes[bytes.length - 10] ^= 1; // in the last chunk
+        Files.write(encrypted, bytes);
+
+        // Only the chunks covering the range are authenticated
+        assertArrayEquals(Arrays.copyOfRange(data, 0, CHUNK_SIZE),
+                componentB.decryptRange(encrypted.toString(), SECRET_KEY, 0, CHUNK_SIZE));
+        IOException e = assertThrows(IOException.class,
+                () -> componentB.decryptRange(encrypted.toString(), SECRET_KEY, 3 * CHUNK_SIZE, 10));
+        assertInstanceOf(AEADBadTagException.class, e.getCause());
+    }
+
+    @Test
+    public void testDecryptingChannel() throws IOException, GeneralSecurityException {
+        byte[] data = writeOriginal(3 * CHUNK_SIZE + 7);
+        componentA.encryptFileGcm(original.toString(), encrypted.toString(), SECRET_KEY, CHUNK_SIZE);
+
+        try (SeekableByteChannel channel = componentB.openDecryptingChannel(encrypted.toString(), SECRET_KEY)) {
+            assertEquals(data.length, channel.size());
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            channel.position(2 * CHUNK_SIZE - 100);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading across the chunk boundary
+            }
+            assertArrayEquals(Arrays.copyOfRange(data, 2 * CHUNK_SIZE - 100, 3 * CHUNK_SIZE - 100), buffer.array());
+            assertEquals(3 * CHUNK_SIZE - 100, channel.position());
+        }
+    }
+
+    @Test
+    public void testPassphraseRoundTrip() throws IOException, GeneralSecurityException {
+        byte[] data = writeOriginal(6 * CHUNK_SIZE + 1);
+        CryptoContext context = new CryptoContext("correct horse".toCharArray(), PBKDF2_ITERATIONS);
+        componentA.encryptFileParallel(original.toString(), encrypted.toString(), context, CHUNK_SIZE, 3);
+
+        // A fresh context re-derives the key from the salt and iteration count in the header
+        CryptoContext reader = new CryptoContext("correct horse".toCharArray(), PBKDF2_ITERATIONS);
+        componentB.decryptFileGcm(encrypted.toString(), decrypted.toString(), reader);
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+        componentB.decryptFileParallel(encrypted.toString(), decrypted.toString(), reader, 2);
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+        assertArrayEquals(Arrays.copyOfRange(data, CHUNK_SIZE - 1, 2 * CHUNK_SIZE + 1),
+                componentB.decryptRange(encrypted.toString(), reader, CHUNK_SIZE - 1, CHUNK_SIZE + 2));
+
+        CryptoContext wrong = new CryptoContext("wrong horse".toCharArray(), PBKDF2_ITERATIONS);
+        assertThrows(AEADBadTagException.class,
+                () -> componentB.decryptFileGcm(encrypted.toString(), decrypted.toString(), wrong));
+        // A passphrase-encrypted file cannot be opened with a raw key
+        assertThrows(GeneralSecurityException.class,
+                () -> componentB.decryptRange(encrypted.toString(), SECRET_KEY, 0, 10));
+    }
+
+    private byte[] writeOriginal(int size) throws IOException {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        Files.write(original, data);
+        return data;
+    }
+
+    private static void truncate(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+}
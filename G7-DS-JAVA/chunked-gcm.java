@@ -0,0 +1,595 @@
+// ChunkedGcm.java
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chunked AES-GCM file format shared by ComponentA and ComponentB.
+ * <p>
+ * Layout: {@code header | chunk 0 | chunk 1 | ...}. The header holds a magic number,
+ * the format version, the plaintext chunk size and a random 12-byte base nonce. Version 1
+ * files use a raw key; version 2 files additionally store the PBKDF2 iteration count and
+ * salt from which {@link CryptoContext} derives the key. Every
+ * chunk is encrypted on its own: its nonce is the base nonce with the chunk index XORed
+ * into the last 8 bytes, and its 16-byte tag authenticates the header, the chunk index
+ * and whether it is the final chunk. Chunks therefore cannot be modified, reordered or
+ * dropped (including truncating the file) without failing authentication. All chunks
+ * except the last hold exactly {@code chunkSize} plaintext bytes, so chunk {@code i}
+ * always starts at {@code headerLength + i * (chunkSize + TAG_LENGTH)}.
+ */
+public final class ChunkedGcm {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    // Every reader and worker allocates a chunk-sized buffer, so a header cannot ask for more
+    public static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    static final int TAG_LENGTH = 16;
+    static final int NONCE_LENGTH = 12;
+    static final int SALT_LENGTH = 16;
+    static final int MAX_ITERATIONS = 10_000_000;
+
+    private static final int MAGIC = 0x47374743; // "G7GC"
+    private static final byte RAW_KEY_VERSION = 1;
+    private static final byte DERIVED_KEY_VERSION = 2;
+    private static final int PREFIX_LENGTH = 4 + 1 + 4 + NONCE_LENGTH;
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Cipher.getInstance does a provider lookup, so each thread keeps and re-inits its own
+    private static final ThreadLocal<Cipher> CIPHERS = new ThreadLocal<>();
+
+    // Shared by every parallel encryption and decryption, so its threads and their ciphers
+    // outlive a single file. The work is CPU-bound, so there is one thread per processor and
+    // workers beyond that wait for a thread.
+    static final int WORKER_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService WORKERS = newWorkerPool();
+
+    private final int chunkSize;
+    private final byte[] baseNonce;
+    private final int iterations;
+    private final byte[] salt;
+    private final byte[] header;
+
+    private ChunkedGcm(int chunkSize, byte[] baseNonce, int iterations, byte[] salt) {
+        this.chunkSize = chunkSize;
+        this.baseNonce = baseNonce;
+        this.iterations = iterations;
+        this.salt = salt;
+        ByteBuffer buffer = ByteBuffer.allocate(PREFIX_LENGTH + (salt == null ? 0 : 4 + SALT_LENGTH));
+        buffer.putInt(MAGIC).put(salt == null ? RAW_KEY_VERSION : DERIVED_KEY_VERSION).putInt(chunkSize).put(baseNonce);
+        if (salt != null) {
+            buffer.putInt(iterations).put(salt);
+        }
+        this.header = buffer.array();
+    }
+
+    /**
+     * Creates the header of a new raw-key file with a fresh random base nonce.
+     *
+     * @param chunkSize The plaintext bytes per chunk, at most {@link #MAX_CHUNK_SIZE}.
+     */
+    static ChunkedGcm newFile(int chunkSize) {
+        return newFile(chunkSize, 0, null);
+    }
+
+    /**
+     * Creates the header of a new file whose key is derived with PBKDF2 from the given
+     * salt and iteration count, with a fresh random base nonce.
+     *
+     * @param chunkSize  The plaintext bytes per chunk, at most {@link #MAX_CHUNK_SIZE}.
+     * @param iterations The PBKDF2 iteration count, or 0 for a raw-key file.
+     * @param salt       The PBKDF2 salt, or null for a raw-key file.
+     */
+    static ChunkedGcm newFile(int chunkSize, int iterations, byte[] salt) {
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE + ": " + chunkSize);
+        }
+        byte[] nonce = new byte[NONCE_LENGTH];
+        RANDOM.nextBytes(nonce);
+        return new ChunkedGcm(chunkSize, nonce, iterations, salt);
+    }
+
+    /**
+     * Reads and validates the header at the start of an encrypted file.
+     *
+     * @throws IOException If the file is not in this format.
+     */
+    static ChunkedGcm readHeader(FileChannel in) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(PREFIX_LENGTH + 4 + SALT_LENGTH);
+        buffer.limit(PREFIX_LENGTH);
+        readHeaderBytes(in, buffer);
+        buffer.flip();
+        byte version = buffer.getInt() == MAGIC ? buffer.get() : 0;
+        if (version != RAW_KEY_VERSION && version != DERIVED_KEY_VERSION) {
+            throw new IOException("Not a chunked AES-GCM file or unsupported version");
+        }
+        int chunkSize = buffer.getInt();
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IOException("Corrupt header: invalid chunk size " + chunkSize);
+        }
+        byte[] nonce = new byte[NONCE_LENGTH];
+        buffer.get(nonce);
+        if (version == RAW_KEY_VERSION) {
+            return new ChunkedGcm(chunkSize, nonce, 0, null);
+        }
+
+        buffer.limit(buffer.capacity());
+        readHeaderBytes(in, buffer);
+        buffer.position(PREFIX_LENGTH);
+        int iterations = buffer.getInt();
+        if (iterations <= 0 || iterations > MAX_ITERATIONS) {
+            throw new IOException("Corrupt header: invalid iteration count " + iterations);
+        }
+        byte[] salt = new byte[SALT_LENGTH];
+        buffer.get(salt);
+        return new ChunkedGcm(chunkSize, nonce, iterations, salt);
+    }
+
+    private static void readHeaderBytes(FileChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, buffer.position()) < 0) {
+                throw new IOException("Not a chunked AES-GCM file: header is truncated");
+            }
+        }
+    }
+
+    void writeHeader(FileChannel out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        while (buffer.hasRemaining()) {
+            out.write(buffer, buffer.position());
+        }
+    }
+
+    int getChunkSize() {
+        return chunkSize;
+    }
+
+    /** The PBKDF2 salt of a derived-key file, or null for a raw-key file. */
+    byte[] getSalt() {
+        return salt == null ? null : salt.clone();
+    }
+
+    /** The PBKDF2 iteration count of a derived-key file, or 0 for a raw-key file. */
+    int getIterations() {
+        return iterations;
+    }
+
+    /** Number of chunks for a plaintext of the given length; an empty plaintext still has one. */
+    long chunkCountForPlaintext(long plaintextLength) {
+        return Math.max(1, (plaintextLength + chunkSize - 1) / chunkSize);
+    }
+
+    /** Number of chunks in an encrypted file of the given size. */
+    long chunkCountForFile(long fileSize) throws IOException {
+        long body = fileSize - header.length;
+        long stride = (long) chunkSize + TAG_LENGTH;
+        long chunks = (body + stride - 1) / stride;
+        if (chunks == 0 || body - (chunks - 1) * stride < TAG_LENGTH) {
+            throw new IOException("Corrupt file: size " + fileSize + " does not match the chunk layout");
+        }
+        return chunks;
+    }
+
+    /** Plaintext length of an encrypted file of the given size. */
+    long plaintextLength(long fileSize) throws IOException {
+        return fileSize - header.length - chunkCountForFile(fileSize) * TAG_LENGTH;
+    }
+
+    /** File offset of the ciphertext of chunk {@code index}. */
+    long chunkOffset(long index) {
+        return header.length + index * ((long) chunkSize + TAG_LENGTH);
+    }
+
+    /**
+     * Encrypts one chunk. {@code plaintext} is consumed from position to limit and the
+     * ciphertext with its tag is written to {@code ciphertext} at its position.
+     */
+    void encryptChunk(Cipher cipher, SecretKey key, long index, boolean last,
+                      ByteBuffer plaintext, ByteBuffer ciphertext) throws GeneralSecurityException {
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, chunkNonce(index)));
+        cipher.updateAAD(aad(index, last));
+        cipher.doFinal(plaintext, ciphertext);
+    }
+
+    /**
+     * Decrypts and authenticates one chunk, see {@link #encryptChunk}.
+     *
+     * @throws AEADBadTagException If the chunk was modified, moved or truncated.
+     */
+    void decryptChunk(Cipher cipher, SecretKey key, long index, boolean last,
+                      ByteBuffer ciphertext, ByteBuffer plaintext) throws GeneralSecurityException {
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, chunkNonce(index)));
+        cipher.updateAAD(aad(index, last));
+        try {
+            cipher.doFinal(ciphertext, plaintext);
+        } catch (AEADBadTagException e) {
+            AEADBadTagException chunkFailure = new AEADBadTagException("Chunk " + index + " failed authentication");
+            chunkFailure.initCause(e);
+            throw chunkFailure;
+        }
+    }
+
+    static Cipher newCipher() throws GeneralSecurityException {
+        return Cipher.getInstance(TRANSFORMATION);
+    }
+
+    /** The calling thread's cipher, created on first use; it is re-initialised for every chunk. */
+    static Cipher threadCipher() throws GeneralSecurityException {
+        Cipher cipher = CIPHERS.get();
+        if (cipher == null) {
+            cipher = newCipher();
+            CIPHERS.set(cipher);
+        }
+        return cipher;
+    }
+
+    /**
+     * Supplies the key for a file once its header has been read.
+     */
+    @FunctionalInterface
+    interface KeyResolver {
+
+        SecretKey keyFor(ChunkedGcm header) throws GeneralSecurityException;
+    }
+
+    /** Resolves every raw-key file to {@code key} and rejects derived-key files. */
+    static KeyResolver rawKey(SecretKey key) {
+        return header -> {
+            if (header.salt != null) {
+                throw new InvalidKeyException("File was encrypted with a passphrase-derived key; use a CryptoContext");
+            }
+            return key;
+        };
+    }
+
+    /**
+     * Encrypts a whole file sequentially, reusing one pair of direct buffers for all chunks.
+     */
+    static void encrypt(FileChannel in, FileChannel out, ChunkedGcm format, SecretKey key)
+            throws IOException, GeneralSecurityException {
+        int chunkSize = format.getChunkSize();
+        format.writeHeader(out);
+        Cipher cipher = threadCipher();
+        ByteBuffer plaintext = ByteBuffer.allocateDirect(chunkSize);
+        ByteBuffer ciphertext = ByteBuffer.allocateDirect(chunkSize + TAG_LENGTH);
+        long chunks = format.chunkCountForPlaintext(in.size());
+        for (long index = 0; index < chunks; index++) {
+            plaintext.clear();
+            readFully(in, plaintext, index * chunkSize);
+            plaintext.flip();
+            ciphertext.clear();
+            format.encryptChunk(cipher, key, index, index == chunks - 1, plaintext, ciphertext);
+            ciphertext.flip();
+            writeFully(out, ciphertext, format.chunkOffset(index));
+        }
+    }
+
+    /**
+     * Decrypts a whole file sequentially, authenticating every chunk before writing it.
+     */
+    static void decrypt(FileChannel in, FileChannel out, KeyResolver keys)
+            throws IOException, GeneralSecurityException {
+        ChunkedGcm format = readHeader(in);
+        SecretKey key = keys.keyFor(format);
+        int chunkSize = format.getChunkSize();
+        Cipher cipher = threadCipher();
+        ByteBuffer ciphertext = ByteBuffer.allocateDirect(chunkSize + TAG_LENGTH);
+        ByteBuffer plaintext = ByteBuffer.allocateDirect(chunkSize);
+        long chunks = format.chunkCountForFile(in.size());
+        for (long index = 0; index < chunks; index++) {
+            ciphertext.clear();
+            readFully(in, ciphertext, format.chunkOffset(index));
+            ciphertext.flip();
+            plaintext.clear();
+            format.decryptChunk(cipher, key, index, index == chunks - 1, ciphertext, plaintext);
+            plaintext.flip();
+            writeFully(out, plaintext, index * chunkSize);
+        }
+    }
+
+    /**
+     * Encrypts a whole file on {@code workers} threads. Chunks are independent, so each
+     * worker takes the next unprocessed chunk, encrypts it with its own cipher and buffers,
+     * and writes it at its fixed offset with a positional write. The output is identical
+     * in layout to {@link #encrypt} and can be decrypted either way.
+     */
+    static void encryptParallel(FileChannel in, FileChannel out, ChunkedGcm format, SecretKey key, int workers)
+            throws IOException, GeneralSecurityException {
+        int chunkSize = format.getChunkSize();
+        format.writeHeader(out);
+        long chunks = format.chunkCountForPlaintext(in.size());
+        runParallel(workers, chunks, () -> {
+            Cipher cipher = threadCipher();
+            ByteBuffer plaintext = ByteBuffer.allocateDirect(chunkSize);
+            ByteBuffer ciphertext = ByteBuffer.allocateDirect(chunkSize + TAG_LENGTH);
+            return index -> {
+                plaintext.clear();
+                readFully(in, plaintext, index * chunkSize);
+                plaintext.flip();
+                ciphertext.clear();
+                format.encryptChunk(cipher, key, index, index == chunks - 1, plaintext, ciphertext);
+                ciphertext.flip();
+                writeFully(out, ciphertext, format.chunkOffset(index));
+            };
+        });
+    }
+
+    /**
+     * Decrypts a whole file on {@code workers} threads, see {@link #encryptParallel}.
+     * The first chunk that fails authentication stops all workers.
+     */
+    static void decryptParallel(FileChannel in, FileChannel out, KeyResolver keys, int workers)
+            throws IOException, GeneralSecurityException {
+        ChunkedGcm format = readHeader(in);
+        SecretKey key = keys.keyFor(format);
+        int chunkSize = format.getChunkSize();
+        long chunks = format.chunkCountForFile(in.size());
+        runParallel(workers, chunks, () -> {
+            Cipher cipher = threadCipher();
+            ByteBuffer ciphertext = ByteBuffer.allocateDirect(chunkSize + TAG_LENGTH);
+            ByteBuffer plaintext = ByteBuffer.allocateDirect(chunkSize);
+            return index -> {
+                ciphertext.clear();
+                readFully(in, ciphertext, format.chunkOffset(index));
+                ciphertext.flip();
+                plaintext.clear();
+                format.decryptChunk(cipher, key, index, index == chunks - 1, ciphertext, plaintext);
+                plaintext.flip();
+                writeFully(out, plaintext, index * chunkSize);
+            };
+        });
+    }
+
+    private static void runParallel(int workers, long chunks, WorkerFactory factory)
+            throws IOException, GeneralSecurityException {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        AtomicLong next = new AtomicLong();
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < Math.min(workers, chunks); i++) {
+                futures.add(WORKERS.submit(() -> {
+                    ChunkProcessor processor = factory.newProcessor();
+                    try {
+                        for (long index = next.getAndIncrement(); index < chunks; index = next.getAndIncrement()) {
+                            processor.process(index);
+                        }
+                    } catch (IOException | GeneralSecurityException | RuntimeException e) {
+                        // Let the other workers run out of chunks instead of finishing the file
+                        next.set(chunks);
+                        throw e;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Chunk processing interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof GeneralSecurityException) {
+                throw (GeneralSecurityException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        } finally {
+            // The pool is shared, so stop only this file's workers if one failed or we were interrupted
+            next.set(chunks);
+            for (Future<Void> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static ExecutorService newWorkerPool() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(WORKER_THREADS, task -> {
+            Thread thread = new Thread(task, "chunked-gcm-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a read-only plaintext view of an encrypted file. Reads decrypt and authenticate
+     * only the chunks that cover the requested bytes; the most recently decrypted chunk is
+     * kept so sequential small reads do not decrypt it again.
+     *
+     * @param in   The encrypted file, positioned anywhere; it is closed with the returned channel.
+     * @param keys Supplies the decryption key for the file's header.
+     */
+    static SeekableByteChannel openDecrypting(FileChannel in, KeyResolver keys)
+            throws IOException, GeneralSecurityException {
+        ChunkedGcm format = readHeader(in);
+        return new DecryptingChannel(in, format, keys.keyFor(format));
+    }
+
+    private static final class DecryptingChannel implements SeekableByteChannel {
+
+        private final FileChannel in;
+        private final ChunkedGcm format;
+        private final SecretKey key;
+        private final Cipher cipher;
+        private final long chunks;
+        private final long size;
+        private final ByteBuffer ciphertext;
+        private final ByteBuffer plaintext;
+        private long cachedChunk = -1;
+        private long position;
+
+        DecryptingChannel(FileChannel in, ChunkedGcm format, SecretKey key)
+                throws IOException, GeneralSecurityException {
+            this.in = in;
+            this.format = format;
+            this.key = key;
+            this.cipher = newCipher();
+            long fileSize = in.size();
+            this.chunks = format.chunkCountForFile(fileSize);
+            this.size = format.plaintextLength(fileSize);
+            this.ciphertext = ByteBuffer.allocateDirect(format.getChunkSize() + TAG_LENGTH);
+            this.plaintext = ByteBuffer.allocateDirect(format.getChunkSize());
+        }
+
+        /**
+         * @throws IOException If a covered chunk fails authentication; the cause is the
+         *                     {@link AEADBadTagException}.
+         */
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            ensureOpen();
+            if (position >= size) {
+                return -1;
+            }
+            int total = 0;
+            while (dst.hasRemaining() && position < size) {
+                long index = position / format.getChunkSize();
+                load(index);
+                int offset = (int) (position - index * format.getChunkSize());
+                int count = Math.min(dst.remaining(), plaintext.limit() - offset);
+                ByteBuffer slice = plaintext.duplicate();
+                slice.position(offset).limit(offset + count);
+                dst.put(slice);
+                position += count;
+                total += count;
+            }
+            return total;
+        }
+
+        private void load(long index) throws IOException {
+            if (index == cachedChunk) {
+                return;
+            }
+            cachedChunk = -1;
+            ciphertext.clear();
+            readFully(in, ciphertext, format.chunkOffset(index));
+            ciphertext.flip();
+            plaintext.clear();
+            try {
+                format.decryptChunk(cipher, key, index, index == chunks - 1, ciphertext, plaintext);
+            } catch (GeneralSecurityException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            plaintext.flip();
+            cachedChunk = index;
+        }
+
+        @Override
+        public long position() throws IOException {
+            ensureOpen();
+            return position;
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) throws IOException {
+            ensureOpen();
+            if (newPosition < 0) {
+                throw new IllegalArgumentException("Negative position");
+            }
+            position = newPosition;
+            return this;
+        }
+
+        /** The plaintext length. */
+        @Override
+        public long size() throws IOException {
+            ensureOpen();
+            return size;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return in.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private void ensureOpen() throws ClosedChannelException {
+            if (!in.isOpen()) {
+                throw new ClosedChannelException();
+            }
+        }
+    }
+
+    /** Creates the per-thread state (cipher and buffers) of one parallel worker. */
+    private interface WorkerFactory {
+
+        ChunkProcessor newProcessor() throws GeneralSecurityException;
+    }
+
+    private interface ChunkProcessor {
+
+        void process(long index) throws IOException, GeneralSecurityException;
+    }
+
+    /** Fills {@code buffer} from {@code position} until it is full or the channel ends. */
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return;
+            }
+            position += read;
+        }
+    }
+
+    static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private byte[] chunkNonce(long index) {
+        byte[] nonce = baseNonce.clone();
+        for (int i = 0; i < 8; i++) {
+            nonce[NONCE_LENGTH - 1 - i] ^= (byte) (index >>> (8 * i));
+        }
+        return nonce;
+    }
+
+    private byte[] aad(long index, boolean last) {
+        return ByteBuffer.allocate(header.length + 8 + 1)
+                .put(header).putLong(index).put((byte) (last ? 1 : 0))
+                .array();
+    }
+}
@@ -2,6 +2,10 @@
 import javax.crypto.*;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 
@@ -41,4 +45,108 @@ public class ComponentA {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Encrypts a file with authenticated AES-GCM in the {@link ChunkedGcm} format, using
+     * chunks of {@link ChunkedGcm#DEFAULT_CHUNK_SIZE} bytes.
+     *
+     * @param inputFile  The path to the input file.
+     * @param outputFile The path to the encrypted output file.
+     * @param secretKey  The secret key for encryption (16, 24 or 32 bytes).
+     * @throws IOException              If an I/O error occurs.
+     * @throws GeneralSecurityException If the key is invalid or AES-GCM is not available.
+     */
+    public void encryptFileGcm(String inputFile, String outputFile, String secretKey)
+            throws IOException, GeneralSecurityException {
+        encryptFileGcm(inputFile, outputFile, secretKey, ChunkedGcm.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Encrypts a file with authenticated AES-GCM in the {@link ChunkedGcm} format. Each chunk
+     * is read into a direct buffer and encrypted in a single cipher call, so the JDK's AES-NI
+     * and GHASH intrinsics run on whole chunks.
+     *
+     * @param inputFile  The path to the input file.
+     * @param outputFile The path to the encrypted output file.
+     * @param secretKey  The secret key for encryption (16, 24 or 32 bytes).
+     * @param chunkSize  The plaintext bytes per authenticated chunk.
+     * @throws IOException              If an I/O error occurs.
+     * @throws GeneralSecurityException If the key is invalid or AES-GCM is not available.
+     */
+    public void encryptFileGcm(String inputFile, String outputFile, String secretKey, int chunkSize)
+            throws IOException, GeneralSecurityException {
+        SecretKey key = new SecretKeySpec(secretKey.getBytes(), ALGORITHM);
+        try (FileChannel in = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(Paths.get(outputFile), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ChunkedGcm.encrypt(in, out, ChunkedGcm.newFile(chunkSize), key);
+        }
+    }
+
+    /**
+     * Encrypts a file in the {@link ChunkedGcm} format with chunks encrypted concurrently
+     * on {@code workers} threads and written at their computed offsets, so throughput
+     * scales with the number of cores. The result can be decrypted by
+     * {@link ComponentB#decryptFileGcm} or {@link ComponentB#decryptFileParallel}.
+     *
+     * @param inputFile  The path to the input file.
+     * @param outputFile The path to the encrypted output file.
+     * @param secretKey  The secret key for encryption (16, 24 or 32 bytes).
+     * @param chunkSize  The plaintext bytes per authenticated chunk.
+     * @param workers    The number of chunks encrypted concurrently, at most one per processor.
+     * @throws IOException              If an I/O error occurs.
+     * @throws GeneralSecurityException If the key is invalid or AES-GCM is not available.
+     */
+    public void encryptFileParallel(String inputFile, String outputFile, String secretKey, int chunkSize, int workers)
+            throws IOException, GeneralSecurityException {
+        SecretKey key = new SecretKeySpec(secretKey.getBytes(), ALGORITHM);
+        try (FileChannel in = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(Paths.get(outputFile), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ChunkedGcm.encryptParallel(in, out, ChunkedGcm.newFile(chunkSize), key, workers);
+        }
+    }
+
+    /**
+     * Encrypts a file in the {@link ChunkedGcm} format with a key derived from a passphrase,
+     * using chunks of {@link ChunkedGcm#DEFAULT_CHUNK_SIZE} bytes. The context's salt and
+     * iteration count are stored in the file header, so {@link ComponentB#decryptFileGcm(String, String, CryptoContext)}
+     * only needs a context built from the same passphrase. The key is derived once per
+     * context, so reuse one context for many files.
+     *
+     * @param inputFile  The path to the input file.
+     * @param outputFile The path to the encrypted output file.
+     * @param context    The passphrase-derived key.
+     * @throws IOException              If an I/O error occurs.
+     * @throws GeneralSecurityException If AES-GCM is not available.
+     */
+    public void encryptFileGcm(String inputFile, String outputFile, CryptoContext context)
+            throws IOException, GeneralSecurityException {
+        try (FileChannel in = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(Paths.get(outputFile), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ChunkedGcm.encrypt(in, out, context.newFile(ChunkedGcm.DEFAULT_CHUNK_SIZE), context.encryptionKey());
+        }
+    }
+
+    /**
+     * Encrypts a file like {@link #encryptFileParallel(String, String, String, int, int)} with
+     * a key derived from a passphrase.
+     *
+     * @param inputFile  The path to the input file.
+     * @param outputFile The path to the encrypted output file.
+     * @param context    The passphrase-derived key.
+     * @param chunkSize  The plaintext bytes per authenticated chunk.
+     * @param workers    The number of chunks encrypted concurrently, at most one per processor.
+     * @throws IOException              If an I/O error occurs.
+     * @throws GeneralSecurityException If AES-GCM is not available.
+     */
+    public void encryptFileParallel(String inputFile, String outputFile, CryptoContext context, int chunkSize, int workers)
+            throws IOException, GeneralSecurityException {
+        try (FileChannel in = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(Paths.get(outputFile), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ChunkedGcm.encryptParallel(in, out, context.newFile(chunkSize), context.encryptionKey(), workers);
+        }
+    }
+}
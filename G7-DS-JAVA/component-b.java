@@ -2,13 +2,23 @@
 import javax.crypto.*;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 public class ComponentB {
 
     private static final String ALGORITHM = "AES";
     private static final String TRANSFORMATION = "AES";
+    private static final int COMPARE_BUFFER_SIZE = 1024 * 1024;
 
     /**
      * Decrypts a file using AES decryption.
@@ -43,7 +53,207 @@ public class ComponentB {
     }
 
     /**
-     * Verifies that the decrypted file content matches the original content.
+     * Decrypts a file written by {@link ComponentA#encryptFileGcm}. Every chunk is
+     * authenticated before its plaintext is written; if any chunk fails, the partial
+     * output file is deleted.
+     *
+     * @param inputFile  The path to the encrypted input file.
+     * @param outputFile The path to the decrypted output file.
+     * @param secretKey  The secret key for decryption (16, 24 or 32 bytes).
+     * @throws IOException              If an I/O error occurs or the file is not in the chunked format.
+     * @throws javax.crypto.AEADBadTagException If a chunk was corrupted, reordered or truncated.
+     * @throws GeneralSecurityException If the key is invalid or AES-GCM is not available.
+     */
+    public void decryptFileGcm(String inputFile, String outputFile, String secretKey)
+            throws IOException, GeneralSecurityException {
+        SecretKey key = new SecretKeySpec(secretKey.getBytes(), ALGORITHM);
+        decryptToFile(inputFile, outputFile, ChunkedGcm.rawKey(key), 0);
+    }
+
+    /**
+     * Decrypts a file written with a passphrase-derived key by
+     * {@link ComponentA#encryptFileGcm(String, String, CryptoContext)} or
+     * {@link ComponentA#encryptFileParallel(String, String, CryptoContext, int, int)}.
+     * The key is derived from the salt in the file header, and cached in the context so
+     * decrypting many files from the same encrypting context derives it only once.
+     *
+     * @param inputFile  The path to the encrypted input file.
+     * @param outputFile The path to the decrypted output file.
+     * @param context    A context built from the passphrase used for encryption.
+     * @throws IOException              If an I/O error occurs or the file is not in the chunked format.
+     * @throws javax.crypto.AEADBadTagException If the passphrase is wrong or a chunk was corrupted, reordered or truncated.
+     * @throws GeneralSecurityException If AES-GCM or PBKDF2 is not available.
+     */
+    public void decryptFileGcm(String inputFile, String outputFile, CryptoContext context)
+            throws IOException, GeneralSecurityException {
+        decryptToFile(inputFile, outputFile, context, 0);
+    }
+
+    /**
+     * Decrypts a file in the {@link ChunkedGcm} format with chunks decrypted concurrently
+     * on {@code workers} threads and written at their computed offsets. Accepts files from
+     * both {@link ComponentA#encryptFileGcm} and {@link ComponentA#encryptFileParallel}.
+     * If any chunk fails authentication, the partial output file is deleted.
+     *
+     * @param inputFile  The path to the encrypted input file.
+     * @param outputFile The path to the decrypted output file.
+     * @param secretKey  The secret key for decryption (16, 24 or 32 bytes).
+     * @param workers    The number of chunks decrypted concurrently, at most one per processor.
+     * @throws IOException              If an I/O error occurs or the file is not in the chunked format.
+     * @throws javax.crypto.AEADBadTagException If a chunk was corrupted, reordered or truncated.
+     * @throws GeneralSecurityException If the key is invalid or AES-GCM is not available.
+     */
+    public void decryptFileParallel(String inputFile, String outputFile, String secretKey, int workers)
+            throws IOException, GeneralSecurityException {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        SecretKey key = new SecretKeySpec(secretKey.getBytes(), ALGORITHM);
+        decryptToFile(inputFile, outputFile, ChunkedGcm.rawKey(key), workers);
+    }
+
+    /**
+     * Decrypts a file with a passphrase-derived key like
+     * {@link #decryptFileParallel(String, String, String, int)}.
+     *
+     * @param inputFile  The path to the encrypted input file.
+     * @param outputFile The path to the decrypted output file.
+     * @param context    A context built from the passphrase used for encryption.
+     * @param workers    The number of chunks decrypted concurrently, at most one per processor.
+     * @throws IOException              If an I/O error occurs or the file is not in the chunked format.
+     * @throws javax.crypto.AEADBadTagException If the passphrase is wrong or a chunk was corrupted, reordered or truncated.
+     * @throws GeneralSecurityException If AES-GCM or PBKDF2 is not available.
+     */
+    public void decryptFileParallel(String inputFile, String outputFile, CryptoContext context, int workers)
+            throws IOException, GeneralSecurityException {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        decryptToFile(inputFile, outputFile, context, workers);
+    }
+
+    // Decrypts on the calling thread when workers is 0; deletes the partial output on failure
+    private static void decryptToFile(String inputFile, String outputFile, ChunkedGcm.KeyResolver keys, int workers)
+            throws IOException, GeneralSecurityException {
+        Path outputPath = Paths.get(outputFile);
+        boolean complete = false;
+        try (FileChannel in = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(outputPath, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            if (workers == 0) {
+                ChunkedGcm.decrypt(in, out, keys);
+            } else {
+                ChunkedGcm.decryptParallel(in, out, keys, workers);
+            }
+            complete = true;
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(outputPath);
+            }
+        }
+    }
+
+    /**
+     * Opens a read-only, seekable plaintext view of a file in the {@link ChunkedGcm} format.
+     * Only the chunks covering the bytes actually read are decrypted and authenticated.
+     * A chunk that fails authentication surfaces as an {@link IOException} whose cause is
+     * the {@link javax.crypto.AEADBadTagException}.
+     *
+     * @param inputFile The path to the encrypted file.
+     * @param secretKey The secret key for decryption (16, 24 or 32 bytes).
+     * @return A channel whose {@code size()} is the plaintext length; the caller must close it.
+     * @throws IOException              If an I/O error occurs or the file is not in the chunked format.
+     * @throws GeneralSecurityException If the key is invalid or AES-GCM is not available.
+     */
+    public SeekableByteChannel openDecryptingChannel(String inputFile, String secretKey)
+            throws IOException, GeneralSecurityException {
+        SecretKey key = new SecretKeySpec(secretKey.getBytes(), ALGORITHM);
+        return openDecrypting(inputFile, ChunkedGcm.rawKey(key));
+    }
+
+    /**
+     * Opens a seekable plaintext view of a file encrypted with a passphrase-derived key, like
+     * {@link #openDecryptingChannel(String, String)}.
+     *
+     * @param inputFile The path to the encrypted file.
+     * @param context   A context built from the passphrase used for encryption.
+     * @return A channel whose {@code size()} is the plaintext length; the caller must close it.
+     * @throws IOException              If an I/O error occurs or the file is not in the chunked format.
+     * @throws GeneralSecurityException If AES-GCM or PBKDF2 is not available.
+     */
+    public SeekableByteChannel openDecryptingChannel(String inputFile, CryptoContext context)
+            throws IOException, GeneralSecurityException {
+        return openDecrypting(inputFile, context);
+    }
+
+    private static SeekableByteChannel openDecrypting(String inputFile, ChunkedGcm.KeyResolver keys)
+            throws IOException, GeneralSecurityException {
+        FileChannel in = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ);
+        try {
+            return ChunkedGcm.openDecrypting(in, keys);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Decrypts a byte range of a file in the {@link ChunkedGcm} format, decrypting only
+     * the chunks that the range covers.
+     *
+     * @param inputFile The path to the encrypted file.
+     * @param secretKey The secret key for decryption (16, 24 or 32 bytes).
+     * @param offset    The plaintext offset of the first byte to return.
+     * @param length    The number of bytes to return.
+     * @return The plaintext bytes; shorter than {@code length} if the range extends past the end.
+     * @throws IOException              If an I/O error occurs, the file is not in the chunked
+     *                                  format, or a covered chunk fails authentication.
+     * @throws GeneralSecurityException If the key is invalid or AES-GCM is not available.
+     */
+    public byte[] decryptRange(String inputFile, String secretKey, long offset, int length)
+            throws IOException, GeneralSecurityException {
+        SecretKey key = new SecretKeySpec(secretKey.getBytes(), ALGORITHM);
+        return readRange(inputFile, ChunkedGcm.rawKey(key), offset, length);
+    }
+
+    /**
+     * Decrypts a byte range of a file encrypted with a passphrase-derived key, like
+     * {@link #decryptRange(String, String, long, int)}.
+     *
+     * @param inputFile The path to the encrypted file.
+     * @param context   A context built from the passphrase used for encryption.
+     * @param offset    The plaintext offset of the first byte to return.
+     * @param length    The number of bytes to return.
+     * @return The plaintext bytes; shorter than {@code length} if the range extends past the end.
+     * @throws IOException              If an I/O error occurs, the file is not in the chunked
+     *                                  format, or a covered chunk fails authentication.
+     * @throws GeneralSecurityException If AES-GCM or PBKDF2 is not available.
+     */
+    public byte[] decryptRange(String inputFile, CryptoContext context, long offset, int length)
+            throws IOException, GeneralSecurityException {
+        return readRange(inputFile, context, offset, length);
+    }
+
+    private static byte[] readRange(String inputFile, ChunkedGcm.KeyResolver keys, long offset, int length)
+            throws IOException, GeneralSecurityException {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("offset and length must not be negative");
+        }
+        try (SeekableByteChannel channel = openDecrypting(inputFile, keys)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(0, Math.min(length, channel.size() - offset)));
+            channel.position(offset);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+    }
+
+    /**
+     * Verifies that the decrypted file content matches the original content byte for byte.
+     * Files of different sizes are rejected without reading them.
      *
      * @param originalFile The path to the original file.
      * @param decryptedFile The path to the decrypted file.
@@ -51,18 +261,55 @@ public class ComponentB {
      * @throws IOException If an I/O error occurs.
      */
     public boolean verifyDecryption(String originalFile, String decryptedFile) throws IOException {
-        try (BufferedReader originalReader = new BufferedReader(new FileReader(originalFile));
-             BufferedReader decryptedReader = new BufferedReader(new FileReader(decryptedFile))) {
-            String originalLine;
-            String decryptedLine;
-            while ((originalLine = originalReader.readLine()) != null) {
-                decryptedLine = decryptedReader.readLine();
-                if (!originalLine.equals(decryptedLine)) {
-                    return false;
+        if (Files.size(Paths.get(originalFile)) != Files.size(Paths.get(decryptedFile))) {
+            return false;
+        }
+        return findFirstMismatch(originalFile, decryptedFile) < 0;
+    }
+
+    /**
+     * Finds the first byte at which two files differ. Both files are read through
+     * {@link FileChannel}s into two reusable 1 MB buffers and
+     * compared block by block with {@link Arrays#mismatch}, so nothing is allocated per block.
+     *
+     * @param originalFile The path to the original file.
+     * @param decryptedFile The path to the decrypted file.
+     * @return The offset of the first differing byte; the length of the shorter file if one
+     *         is a prefix of the other; or -1 if the files are identical.
+     * @throws IOException If an I/O error occurs.
+     */
+    public long findFirstMismatch(String originalFile, String decryptedFile) throws IOException {
+        try (FileChannel original = FileChannel.open(Paths.get(originalFile), StandardOpenOption.READ);
+             FileChannel decrypted = FileChannel.open(Paths.get(decryptedFile), StandardOpenOption.READ)) {
+            long originalSize = original.size();
+            long decryptedSize = decrypted.size();
+            long common = Math.min(originalSize, decryptedSize);
+            byte[] originalBytes = new byte[(int) Math.max(1, Math.min(common, COMPARE_BUFFER_SIZE))];
+            byte[] decryptedBytes = new byte[originalBytes.length];
+            ByteBuffer originalBuffer = ByteBuffer.wrap(originalBytes);
+            ByteBuffer decryptedBuffer = ByteBuffer.wrap(decryptedBytes);
+
+            for (long position = 0; position < common; position += originalBuffer.limit()) {
+                int length = (int) Math.min(originalBytes.length, common - position);
+                originalBuffer.clear().limit(length);
+                decryptedBuffer.clear().limit(length);
+                readFully(original, originalBuffer, position);
+                readFully(decrypted, decryptedBuffer, position);
+                int mismatch = Arrays.mismatch(originalBytes, 0, length, decryptedBytes, 0, length);
+                if (mismatch >= 0) {
+                    return position + mismatch;
                 }
             }
-            // Ensure the decrypted file doesn't have extra lines
-            return decryptedReader.readLine() == null;
+            return originalSize == decryptedSize ? -1 : common;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("File shrank while it was being compared");
+            }
         }
     }
-}
\ No newline at end of file
+}
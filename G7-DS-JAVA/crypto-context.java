@@ -0,0 +1,122 @@
+// CryptoContext.java
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Passphrase-based keys for the {@link ChunkedGcm} format. The AES key is derived from the
+ * passphrase with PBKDF2-HMAC-SHA256 and a random salt once, when the context is created,
+ * and reused for every file it encrypts. The salt and iteration count are written to each
+ * file's header, so decryption needs only the passphrase; keys derived while decrypting
+ * are cached per salt, so a batch of files from the same context is derived only once.
+ * <p>
+ * PBKDF2 is deliberately slow, which is why a context should be created once and shared
+ * rather than created per file. Instances are thread-safe.
+ */
+public final class CryptoContext implements ChunkedGcm.KeyResolver {
+
+    public static final int DEFAULT_ITERATIONS = 600_000;
+
+    private static final String KDF_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int KEY_LENGTH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final char[] passphrase;
+    private final int iterations;
+    private final byte[] salt;
+    private final SecretKey key;
+    private final Map<ByteBuffer, SecretKey> derivedKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a context with {@link #DEFAULT_ITERATIONS} PBKDF2 iterations.
+     *
+     * @param passphrase The passphrase; the array is copied.
+     * @throws GeneralSecurityException If PBKDF2-HMAC-SHA256 is not available.
+     */
+    public CryptoContext(char[] passphrase) throws GeneralSecurityException {
+        this(passphrase, DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Creates a context and derives its encryption key from a fresh random salt.
+     *
+     * @param passphrase The passphrase; the array is copied.
+     * @param iterations The PBKDF2 iteration count.
+     * @throws GeneralSecurityException If PBKDF2-HMAC-SHA256 is not available.
+     */
+    public CryptoContext(char[] passphrase, int iterations) throws GeneralSecurityException {
+        if (passphrase.length == 0) {
+            throw new IllegalArgumentException("Passphrase must not be empty");
+        }
+        if (iterations <= 0 || iterations > ChunkedGcm.MAX_ITERATIONS) {
+            throw new IllegalArgumentException("Iterations must be between 1 and " + ChunkedGcm.MAX_ITERATIONS);
+        }
+        this.passphrase = passphrase.clone();
+        this.iterations = iterations;
+        this.salt = new byte[ChunkedGcm.SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        this.key = derive(salt, iterations);
+        derivedKeys.put(cacheKey(salt, iterations), key);
+    }
+
+    /**
+     * Creates the header of a new file encrypted with this context's key.
+     *
+     * @param chunkSize The plaintext bytes per chunk.
+     */
+    ChunkedGcm newFile(int chunkSize) {
+        return ChunkedGcm.newFile(chunkSize, iterations, salt);
+    }
+
+    /** The key for files created by {@link #newFile}. */
+    SecretKey encryptionKey() {
+        return key;
+    }
+
+    /**
+     * Returns the key for a file, deriving it from the salt and iteration count in its
+     * header unless a key for that pair has already been derived.
+     */
+    @Override
+    public SecretKey keyFor(ChunkedGcm header) throws GeneralSecurityException {
+        byte[] fileSalt = header.getSalt();
+        if (fileSalt == null) {
+            throw new InvalidKeyException("File was encrypted with a raw key, not a passphrase");
+        }
+        ByteBuffer cacheKey = cacheKey(fileSalt, header.getIterations());
+        SecretKey cached = derivedKeys.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        // Not computeIfAbsent: that would hold a map bin lock for the whole derivation
+        SecretKey derived = derive(fileSalt, header.getIterations());
+        SecretKey existing = derivedKeys.putIfAbsent(cacheKey, derived);
+        return existing != null ? existing : derived;
+    }
+
+    private SecretKey derive(byte[] salt, int iterations) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(passphrase, salt, iterations, KEY_LENGTH_BITS);
+        try {
+            byte[] encoded = SecretKeyFactory.getInstance(KDF_ALGORITHM).generateSecret(spec).getEncoded();
+            try {
+                return new SecretKeySpec(encoded, "AES");
+            } finally {
+                Arrays.fill(encoded, (byte) 0);
+            }
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static ByteBuffer cacheKey(byte[] salt, int iterations) {
+        return ByteBuffer.allocate(salt.length + 4).put(salt).putInt(iterations).flip();
+    }
+}
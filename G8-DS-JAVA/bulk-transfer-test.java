@@ -0,0 +1,148 @@
+// BulkTransferTest.java
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkTransferTest {
+
+    private static final int FILES = 20;
+
+    @TempDir
+    Path dir;
+
+    private ComponentA componentA;
+    private ComponentB componentB;
+    private Path sourceDir;
+    private Path cloudDir;
+    private Path downloadDir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        componentA = new ComponentA();
+        componentB = new ComponentB();
+        sourceDir = dir.resolve("source");
+        cloudDir = dir.resolve("cloud_storage");
+        downloadDir = dir.resolve("downloads");
+        Files.createDirectories(sourceDir);
+    }
+
+    @Test
+    public void testUploadAllAndDownloadAll() throws IOException {
+        List<String> sources = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        long totalBytes = 0;
+        for (int i = 0; i < FILES; i++) {
+            Path source = writeSource("file" + i + ".bin", 1000 + i);
+            sources.add(source.toString());
+            names.add(source.getFileName().toString());
+            totalBytes += 1000 + i;
+        }
+        AtomicLong lastFiles = new AtomicLong();
+        AtomicLong lastBytes = new AtomicLong();
+
+        BulkTransfer.Report uploads = componentA.uploadAll(sources, cloudDir.toString(), 4,
+                (result, files, bytes) -> {
+                    lastFiles.accumulateAndGet(files, Math::max);
+                    lastBytes.accumulateAndGet(bytes, Math::max);
+                });
+
+        assertEquals(FILES, uploads.getSucceeded());
+        assertEquals(0, uploads.getFailed());
+        assertEquals(totalBytes, uploads.getBytes());
+        assertEquals(FILES, lastFiles.get());
+        assertEquals(totalBytes, lastBytes.get());
+
+        BulkTransfer.Report downloads = componentB.downloadAll(cloudDir.toString(), names, downloadDir.toString(), 3, null);
+
+        assertEquals(FILES, downloads.getSucceeded());
+        assertEquals(totalBytes, downloads.getBytes());
+        for (String name : names) {
+            assertTrue(componentB.verifyDownload(sourceDir.resolve(name).toString(), downloadDir.resolve(name).toString()));
+            assertTrue(componentB.verifyChecksum(cloudDir.toString(), name, downloadDir.resolve(name).toString()));
+        }
+    }
+
+    @Test
+    public void testFailedFileDoesNotStopTheOthers() throws IOException {
+        Path good = writeSource("good.bin", 100);
+        Path missing = sourceDir.resolve("missing.bin");
+
+        BulkTransfer.Report report = componentA.uploadAll(Arrays.asList(good.toString(), missing.toString()),
+                cloudDir.toString(), 2, null);
+
+        assertEquals(1, report.getSucceeded());
+        assertEquals(1, report.getFailed());
+        assertEquals(100, report.getBytes());
+        for (BulkTransfer.FileResult result : report.getResults()) {
+            if (result.getSource().equals(missing)) {
+                assertFalse(result.isSuccess());
+                assertInstanceOf(NoSuchFileException.class, result.getFailure());
+                assertEquals(0, result.getBytes());
+            } else {
+                assertTrue(result.isSuccess());
+            }
+        }
+        assertTrue(Files.exists(cloudDir.resolve("good.bin")));
+    }
+
+    @Test
+    public void testUploadAllByGlob() throws IOException {
+        writeSource("a.log", 10);
+        writeSource("b.log", 20);
+        writeSource("c.txt", 30);
+        Files.createDirectories(sourceDir.resolve("d.log"));
+
+        BulkTransfer.Report report = componentA.uploadAll(sourceDir.toString(), "*.log", cloudDir.toString(), 2, null);
+
+        assertEquals(2, report.getSucceeded());
+        assertEquals(30, report.getBytes());
+        assertTrue(Files.exists(cloudDir.resolve("a.log")));
+        assertFalse(Files.exists(cloudDir.resolve("c.txt")));
+    }
+
+    @Test
+    public void testDownloadAllSkipsTemporaryFilesAndDirectories() throws IOException {
+        componentA.uploadAll(Arrays.asList(writeSource("a.bin", 10).toString(), writeSource("b.bin", 20).toString()),
+                cloudDir.toString(), 2, null);
+        // Left by an upload in progress, see ChannelTransfer.createTempFile
+        Files.write(cloudDir.resolve(".c.bin123" + ChannelTransfer.TEMP_SUFFIX), new byte[5]);
+
+        BulkTransfer.Report report = componentB.downloadAll(cloudDir.toString(), "*", downloadDir.toString(), 2, null);
+
+        assertEquals(2, report.getSucceeded());
+        assertEquals(0, report.getFailed());
+        assertEquals(30, report.getBytes());
+        try (var files = Files.list(downloadDir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    public void testDownloadAllReportsMissingObjects() throws IOException {
+        componentA.uploadFile(writeSource("a.bin", 10).toString(), cloudDir.toString());
+
+        BulkTransfer.Report report = componentB.downloadAll(cloudDir.toString(), Arrays.asList("a.bin", "gone.bin"),
+                downloadDir.toString(), 2, null);
+
+        assertEquals(1, report.getSucceeded());
+        assertEquals(1, report.getFailed());
+        assertFalse(Files.exists(downloadDir.resolve("gone.bin")));
+    }
+
+    private Path writeSource(String name, int size) throws IOException {
+        byte[] data = new byte[size];
+        Arrays.fill(data, (byte) name.hashCode());
+        Path source = sourceDir.resolve(name);
+        Files.write(source, data);
+        return source;
+    }
+}
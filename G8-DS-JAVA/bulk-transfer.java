@@ -0,0 +1,232 @@
+// BulkTransfer.java
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transfers many files into one directory on a fixed pool of worker threads, each file
+ * with a caller-supplied {@link FileCopier}. Files are submitted as the caller's list or directory
+ * listing is iterated, and at most {@code 2 * workers} transfers are queued at a time,
+ * so a listing of hundreds of thousands of files is never materialised as queued tasks.
+ * <p>
+ * A failed file does not stop the batch; every file gets a {@link FileResult} in the
+ * returned {@link Report}.
+ */
+public final class BulkTransfer {
+
+    private BulkTransfer() {
+    }
+
+    /**
+     * Transfers every file in {@code sources} to {@code targetDir}, keeping its file name.
+     *
+     * @param sources   The files to transfer, consumed lazily.
+     * @param targetDir The destination directory; created if missing.
+     * @param workers   The number of files transferred concurrently.
+     * @param copier    Copies one file, such as an upload that also writes its checksum sidecar.
+     * @param listener  Notified from the worker threads as each file completes, may be null.
+     * @return One result per file, in completion order, plus totals.
+     * @throws IOException If the target directory cannot be created or {@code sources} cannot be iterated.
+     */
+    static Report transferAll(Iterable<Path> sources, Path targetDir, int workers, FileCopier copier,
+                              ProgressListener listener) throws IOException {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        Files.createDirectories(targetDir);
+        long start = System.nanoTime();
+        List<FileResult> results = Collections.synchronizedList(new ArrayList<>());
+        LongAdder files = new LongAdder();
+        LongAdder bytes = new LongAdder();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        Semaphore inFlight = new Semaphore(workers * 2);
+        try {
+            for (Path source : sources) {
+                inFlight.acquire();
+                pool.execute(() -> {
+                    try {
+                        FileResult result = transfer(copier, source, targetDir.resolve(source.getFileName()));
+                        results.add(result);
+                        files.increment();
+                        bytes.add(result.bytes);
+                        if (listener != null) {
+                            listener.fileTransferred(result, files.sum(), bytes.sum());
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Bulk transfer interrupted");
+        } catch (DirectoryIteratorException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Report(new ArrayList<>(results), System.nanoTime() - start);
+    }
+
+    /**
+     * Lists the regular files in {@code dir} whose names match {@code glob}, lazily, for
+     * {@link #transferAll}. Temporary files of copies in progress are skipped. The caller
+     * must close the returned stream.
+     *
+     * @param dir  The directory to list.
+     * @param glob A pattern such as {@code *.csv}, see {@link java.nio.file.FileSystem#getPathMatcher}.
+     */
+    static DirectoryStream<Path> listFiles(Path dir, String glob) throws IOException {
+        PathMatcher matcher = dir.getFileSystem().getPathMatcher("glob:" + glob);
+        // Skips subdirectories such as the multipart staging area
+        return Files.newDirectoryStream(dir, path -> matcher.matches(path.getFileName()) && !isTempFile(path)
+                && Files.isRegularFile(path));
+    }
+
+    // See ChannelTransfer.createTempFile
+    private static boolean isTempFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(".") && name.endsWith(ChannelTransfer.TEMP_SUFFIX);
+    }
+
+    private static FileResult transfer(FileCopier copier, Path source, Path target) {
+        try {
+            ChannelTransfer.TransferStats stats = copier.copy(source, target);
+            return new FileResult(source, target, stats.getBytes(), null);
+        } catch (IOException | RuntimeException e) {
+            // Recorded like an I/O failure, so one bad file cannot silently drop out of the report
+            return new FileResult(source, target, 0, e);
+        }
+    }
+
+    /**
+     * Copies a single file of a bulk transfer.
+     */
+    @FunctionalInterface
+    interface FileCopier {
+
+        ChannelTransfer.TransferStats copy(Path source, Path target) throws IOException;
+    }
+
+    /**
+     * Receives aggregated progress of a bulk transfer. Called concurrently from the
+     * worker threads.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * @param result           The file that just completed, successfully or not.
+         * @param filesTransferred The number of files completed so far.
+         * @param bytesTransferred The number of bytes transferred so far.
+         */
+        void fileTransferred(FileResult result, long filesTransferred, long bytesTransferred);
+    }
+
+    /**
+     * Outcome of the transfer of one file.
+     */
+    public static final class FileResult {
+
+        private final Path source;
+        private final Path target;
+        private final long bytes;
+        private final Exception failure;
+
+        FileResult(Path source, Path target, long bytes, Exception failure) {
+            this.source = source;
+            this.target = target;
+            this.bytes = bytes;
+            this.failure = failure;
+        }
+
+        public Path getSource() {
+            return source;
+        }
+
+        public Path getTarget() {
+            return target;
+        }
+
+        /** The bytes transferred, 0 if the transfer failed. */
+        public long getBytes() {
+            return bytes;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        /** The exception that failed this file, or null if it was transferred. */
+        public Exception getFailure() {
+            return failure;
+        }
+    }
+
+    /**
+     * Per-file results and totals of a bulk transfer.
+     */
+    public static final class Report {
+
+        private final List<FileResult> results;
+        private final long bytes;
+        private final int failures;
+        private final long elapsedNanos;
+
+        Report(List<FileResult> results, long elapsedNanos) {
+            long bytes = 0;
+            int failures = 0;
+            for (FileResult result : results) {
+                bytes += result.bytes;
+                failures += result.isSuccess() ? 0 : 1;
+            }
+            this.results = Collections.unmodifiableList(results);
+            this.bytes = bytes;
+            this.failures = failures;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /** One result per file, in completion order. */
+        public List<FileResult> getResults() {
+            return results;
+        }
+
+        public int getSucceeded() {
+            return results.size() - failures;
+        }
+
+        public int getFailed() {
+            return failures;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsed(TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public double getFilesPerSecond() {
+            return elapsedNanos == 0 ? 0 : results.size() * 1e9 / elapsedNanos;
+        }
+
+        public double getMegabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos / (1024 * 1024);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+// ChannelTransfer.java
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies files between the local disk and the cloud directory with
+ * {@link FileChannel#transferTo}, which lets the kernel move the bytes (sendfile or
+ * copy_file_range on Linux) without copying them through the Java heap.
+ * <p>
+ * When checksums are wanted, the bytes are instead read through a direct buffer that is
+ * checksummed and written, so the source is still read only once.
+ * <p>
+ * The copy is done in chunks so progress can be reported, and it goes to a temporary
+ * file next to the target that is renamed into place once complete. Readers of the
+ * target therefore see either the previous object or the whole new one, never a
+ * partial file.
+ */
+public final class ChannelTransfer {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    static final String TEMP_SUFFIX = ".part";
+
+    private ChannelTransfer() {
+    }
+
+    /**
+     * Copies {@code source} to {@code target} in chunks of {@code chunkSize} bytes and
+     * atomically replaces any existing target.
+     *
+     * @param source    The file to copy.
+     * @param target    The destination; its parent directory is created if missing.
+     * @param chunkSize The bytes handed to the kernel per transfer call.
+     * @param listener  Notified after each chunk, may be null.
+     * @return The byte count and timing of the copy.
+     * @throws IOException If an I/O error occurs; the target is then left untouched.
+     */
+    static TransferStats copy(Path source, Path target, int chunkSize, ProgressListener listener)
+            throws IOException {
+        return copy(source, target, chunkSize, null, listener);
+    }
+
+    /**
+     * Copies {@code source} to {@code target} like {@link #copy(Path, Path, int, ProgressListener)},
+     * feeding every byte to {@code checksums} on the way.
+     *
+     * @param checksums Receives the copied bytes, or null for a zero-copy transfer.
+     */
+    static TransferStats copy(Path source, Path target, int chunkSize, ChecksumSidecar.Calculator checksums,
+                              ProgressListener listener) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        // In the target's directory, so the final move is a same-filesystem rename
+        Path temp = createTempFile(directory, target.getFileName().toString());
+        try {
+            long transferred;
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                transferred = transfer(in, out, chunkSize, checksums, listener);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return new TransferStats(transferred, System.nanoTime() - start);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Creates an empty file with a unique name {@code .<name><random>.part} in
+     * {@code directory}. Unlike {@link Files#createTempFile}, which restricts a temporary
+     * file to its owner, the file gets the default permissions from the umask, so an object
+     * renamed into place from it is as readable as one created directly.
+     *
+     * @param directory The directory to create the file in.
+     * @param name      The name of the file it will replace.
+     * @return The new file.
+     */
+    static Path createTempFile(Path directory, String name) throws IOException {
+        while (true) {
+            Path temp = directory.resolve("." + name + Long.toUnsignedString(ThreadLocalRandom.current().nextLong())
+                    + TEMP_SUFFIX);
+            try {
+                Files.newByteChannel(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).close();
+                return temp;
+            } catch (FileAlreadyExistsException e) {
+                // name taken by a concurrent copy; draw another
+            }
+        }
+    }
+
+    /**
+     * Appends all of {@code in} to {@code out} at its current position.
+     *
+     * @param checksums Receives the copied bytes, or null for a zero-copy transfer.
+     * @return The number of bytes copied.
+     */
+    static long transfer(FileChannel in, FileChannel out, int chunkSize, ChecksumSidecar.Calculator checksums,
+                         ProgressListener listener) throws IOException {
+        if (checksums != null) {
+            return transferBuffered(in, out, chunkSize, checksums, listener);
+        }
+        long size = in.size();
+        long position = 0;
+        while (position < size) {
+            long count = Math.min(chunkSize, size - position);
+            long written = in.transferTo(position, count, out);
+            if (written <= 0) {
+                // transferTo only returns 0 before the requested end if the file shrank
+                throw new IOException("Source was truncated during transfer at byte " + position);
+            }
+            position += written;
+            if (listener != null) {
+                listener.bytesTransferred(position, size);
+            }
+        }
+        return position;
+    }
+
+    private static long transferBuffered(FileChannel in, FileChannel out, int chunkSize,
+                                         ChecksumSidecar.Calculator checksums, ProgressListener listener)
+            throws IOException {
+        long size = in.size();
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.max(1, Math.min(chunkSize, size)));
+        long position = 0;
+        while (position < size) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), size - position));
+            while (buffer.hasRemaining()) {
+                if (in.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Source was truncated during transfer at byte " + (position + buffer.position()));
+                }
+            }
+            buffer.flip();
+            checksums.update(buffer);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            position += buffer.limit();
+            if (listener != null) {
+                listener.bytesTransferred(position, size);
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Receives progress of a single file transfer.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * @param bytesTransferred The number of bytes copied so far.
+         * @param totalBytes       The size of the file being copied.
+         */
+        void bytesTransferred(long bytesTransferred, long totalBytes);
+    }
+
+    /**
+     * Byte count and throughput of a completed transfer.
+     */
+    public static final class TransferStats {
+
+        private final long bytes;
+        private final long elapsedNanos;
+
+        TransferStats(long bytes, long elapsedNanos) {
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsed(TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public double getMegabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos / (1024 * 1024);
+        }
+    }
+}
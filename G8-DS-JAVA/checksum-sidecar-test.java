@@ -0,0 +1,143 @@
+// ChecksumSidecarTest.java
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChecksumSidecarTest {
+
+    private static final String FILE_NAME = "data.bin";
+
+    @TempDir
+    Path dir;
+
+    private ComponentA componentA;
+    private ComponentB componentB;
+    private Path source;
+    private Path cloudDir;
+    private Path object;
+    private Path downloaded;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        componentA = new ComponentA();
+        componentB = new ComponentB();
+        source = dir.resolve(FILE_NAME);
+        cloudDir = dir.resolve("cloud_storage");
+        object = cloudDir.resolve(FILE_NAME);
+        downloaded = dir.resolve("downloads").resolve(FILE_NAME);
+        writeSource(1);
+    }
+
+    @Test
+    public void testVerifyChecksum() throws IOException {
+        componentA.uploadFile(source.toString(), cloudDir.toString());
+        componentB.downloadFile(cloudDir.toString(), FILE_NAME, downloaded.getParent().toString());
+
+        assertTrue(componentB.verifyChecksum(cloudDir.toString(), FILE_NAME, downloaded.toString()));
+        assertNull(ChecksumSidecar.read(object).getSha256());
+
+        byte[] damaged = Files.readAllBytes(downloaded);
+        damaged[damaged.length / 2] ^= 1;
+        Files.write(downloaded, damaged);
+        assertFalse(componentB.verifyChecksum(cloudDir.toString(), FILE_NAME, downloaded.toString()));
+    }
+
+    @Test
+    public void testSha256Checksum() throws IOException {
+        componentA.setSha256Checksums(true);
+        componentA.uploadFile(source.toString(), cloudDir.toString());
+        componentB.downloadFile(cloudDir.toString(), FILE_NAME, downloaded.getParent().toString());
+
+        assertEquals(32, ChecksumSidecar.read(object).getSha256().length);
+        assertTrue(componentB.verifyChecksum(cloudDir.toString(), FILE_NAME, downloaded.toString()));
+    }
+
+    @Test
+    public void testSidecarOfReplacedObjectIsIgnored() throws IOException {
+        componentA.uploadFile(source.toString(), cloudDir.toString());
+        // Another writer replaces the object without updating its sidecar
+        Files.write(object, new byte[] {1, 2, 3});
+        Files.setLastModifiedTime(object, FileTime.fromMillis(Files.getLastModifiedTime(object).toMillis() + 1000));
+
+        assertNull(ChecksumSidecar.read(object));
+        assertThrows(NoSuchFileException.class,
+                () -> componentB.verifyChecksum(cloudDir.toString(), FILE_NAME, source.toString()));
+
+        componentA.uploadFile(source.toString(), cloudDir.toString());
+        assertTrue(componentB.verifyChecksum(cloudDir.toString(), FILE_NAME, source.toString()));
+    }
+
+    @Test
+    public void testUploadWithoutSidecarRemovesTheOldOne() throws IOException {
+        componentA.uploadFile(source.toString(), cloudDir.toString());
+        assertTrue(Files.exists(ChecksumSidecar.pathFor(object)));
+
+        componentA.setChecksumSidecars(false);
+        writeSource(2);
+        componentA.uploadFile(source.toString(), cloudDir.toString());
+
+        assertFalse(Files.exists(ChecksumSidecar.pathFor(object)));
+        assertTrue(componentB.verifyDownload(source.toString(), object.toString()));
+        assertThrows(NoSuchFileException.class,
+                () -> componentB.verifyChecksum(cloudDir.toString(), FILE_NAME, source.toString()));
+    }
+
+    @Test
+    public void testMultipartUploadWithoutSidecar() throws IOException {
+        componentA.setChecksumSidecars(false);
+
+        componentA.uploadFileMultipart(source.toString(), cloudDir.toString(), 4096, 2);
+
+        assertTrue(componentB.verifyDownload(source.toString(), object.toString()));
+        assertFalse(Files.exists(ChecksumSidecar.pathFor(object)));
+    }
+
+    @Test
+    public void testVerifyDownloadAcrossWindows() throws IOException {
+        // Sparse files, so spanning two comparison windows costs no real disk space
+        long size = ComponentB.COMPARE_WINDOW_SIZE + 10;
+        Path first = dir.resolve("first.bin");
+        Path second = dir.resolve("second.bin");
+        setLength(first, size);
+        setLength(second, size);
+        assertTrue(componentB.verifyDownload(first.toString(), second.toString()));
+
+        try (RandomAccessFile file = new RandomAccessFile(second.toFile(), "rw")) {
+            file.seek(size - 1);
+            file.write(1);
+        }
+        assertFalse(componentB.verifyDownload(first.toString(), second.toString()));
+
+        setLength(second, size - 1);
+        assertFalse(componentB.verifyDownload(first.toString(), second.toString()));
+    }
+
+    @Test
+    public void testVerifyEmptyDownload() throws IOException {
+        Path empty = dir.resolve("empty.bin");
+        Files.write(empty, new byte[0]);
+        Files.write(source, new byte[0]);
+
+        assertTrue(componentB.verifyDownload(source.toString(), empty.toString()));
+    }
+
+    private void writeSource(long seed) throws IOException {
+        byte[] data = new byte[100_000];
+        new Random(seed).nextBytes(data);
+        Files.write(source, data);
+    }
+
+    private static void setLength(Path path, long length) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(length);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+// ChecksumSidecar.java
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.CRC32C;
+
+/**
+ * Checksums of an object in the cloud directory, stored next to it as
+ * {@code <cloudDir>/.checksums/<name>.sum}. Every object gets a CRC32C; a SHA-256 is
+ * added when requested. The checksums are computed while the object is uploaded, from
+ * the same buffer that is written, so the source is read only once.
+ * <p>
+ * The sidecar is written after the object is in place and records the object's
+ * modification time. A sidecar whose time no longer matches the object, such as one left
+ * from the previous version by a crash between the rename and the sidecar write, is
+ * ignored as if it did not exist.
+ */
+public final class ChecksumSidecar {
+
+    static final String DIR = ".checksums";
+
+    private static final String SUFFIX = ".sum";
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    private final long size;
+    private final long crc32c;
+    private final byte[] sha256;
+
+    ChecksumSidecar(long size, long crc32c, byte[] sha256) {
+        this.size = size;
+        this.crc32c = crc32c;
+        this.sha256 = sha256;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getCrc32c() {
+        return crc32c;
+    }
+
+    /** The SHA-256 of the object, or null if it was uploaded without one. */
+    public byte[] getSha256() {
+        return sha256 == null ? null : sha256.clone();
+    }
+
+    /**
+     * Whether {@code other} describes the same content: equal sizes and CRC32Cs, and equal
+     * SHA-256s if both have one.
+     */
+    boolean matches(ChecksumSidecar other) {
+        return size == other.size && crc32c == other.crc32c
+                && (sha256 == null || other.sha256 == null || MessageDigest.isEqual(sha256, other.sha256));
+    }
+
+    static Path pathFor(Path object) {
+        return object.toAbsolutePath().getParent().resolve(DIR).resolve(object.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Reads the sidecar of an object.
+     *
+     * @param object The object in the cloud directory.
+     * @return The checksums, or null if the object or its sidecar is missing, or the sidecar
+     *         was written for another version of the object.
+     */
+    static ChecksumSidecar read(Path object) throws IOException {
+        Path file = pathFor(object);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        long size = -1;
+        Long modifiedTime = null;
+        Long crc32c = null;
+        byte[] sha256 = null;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('=');
+                String value = line.substring(separator + 1);
+                switch (separator < 0 ? "" : line.substring(0, separator)) {
+                    case "size":
+                        size = Long.parseLong(value);
+                        break;
+                    case "mtime":
+                        modifiedTime = Long.parseLong(value);
+                        break;
+                    case "crc32c":
+                        crc32c = Long.parseLong(value, 16);
+                        break;
+                    case "sha256":
+                        sha256 = HexFormat.of().parseHex(value);
+                        break;
+                    default:
+                        throw new IOException("Malformed checksum sidecar " + file + ": " + line);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed checksum sidecar " + file, e);
+        }
+        if (size < 0 || crc32c == null) {
+            throw new IOException("Incomplete checksum sidecar " + file);
+        }
+        try {
+            if (modifiedTime == null || modifiedTime != Files.getLastModifiedTime(object).toMillis()) {
+                return null;
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return new ChecksumSidecar(size, crc32c, sha256);
+    }
+
+    /**
+     * Writes this sidecar for an object, atomically replacing any previous one. Must be
+     * called after the object is in place, as it records the object's modification time.
+     *
+     * @param object The object in the cloud directory.
+     */
+    void write(Path object) throws IOException {
+        long modifiedTime = Files.getLastModifiedTime(object).toMillis();
+        Path file = pathFor(object);
+        Files.createDirectories(file.getParent());
+        Path temp = ChannelTransfer.createTempFile(file.getParent(), file.getFileName().toString());
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write("size=" + size + "\n");
+                writer.write("mtime=" + modifiedTime + "\n");
+                writer.write("crc32c=" + Long.toHexString(crc32c) + "\n");
+                if (sha256 != null) {
+                    writer.write("sha256=" + HexFormat.of().formatHex(sha256) + "\n");
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Computes the checksums of a file by streaming it through a fixed 1 MB buffer, so
+     * memory use does not depend on the file size.
+     *
+     * @param file   The file to checksum.
+     * @param sha256 Whether to compute a SHA-256 as well as the CRC32C.
+     */
+    static ChecksumSidecar compute(Path file, boolean sha256) throws IOException {
+        Calculator calculator = new Calculator(sha256);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.max(1, Math.min(in.size(), READ_BUFFER_SIZE)));
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                calculator.update(buffer);
+                buffer.clear();
+            }
+        }
+        return calculator.finish();
+    }
+
+    /**
+     * Accumulates the checksums of bytes as they pass through a transfer.
+     */
+    static final class Calculator {
+
+        private final CRC32C crc32c = new CRC32C();
+        private final MessageDigest sha256;
+        private long size;
+
+        /**
+         * @param sha256 Whether to compute a SHA-256 as well as the CRC32C.
+         */
+        Calculator(boolean sha256) {
+            try {
+                this.sha256 = sha256 ? MessageDigest.getInstance("SHA-256") : null;
+            } catch (NoSuchAlgorithmException e) {
+                // Every Java platform is required to support SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /** Consumes the remaining bytes of {@code buffer}; its position is left unchanged. */
+        void update(ByteBuffer buffer) {
+            size += buffer.remaining();
+            int position = buffer.position();
+            crc32c.update(buffer);
+            if (sha256 != null) {
+                buffer.position(position);
+                sha256.update(buffer);
+            }
+            buffer.position(position);
+        }
+
+        ChecksumSidecar finish() {
+            return new ChecksumSidecar(size, crc32c.getValue(), sha256 == null ? null : sha256.digest());
+        }
+    }
+}
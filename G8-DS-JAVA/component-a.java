@@ -1,9 +1,37 @@
 // ComponentA.java
 import java.io.IOException;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ComponentA {
 
+    private boolean checksumSidecars = true;
+    private boolean sha256Checksums;
+
+    /**
+     * Sets whether uploads write a {@link ChecksumSidecar} for each object. On by default.
+     * Computing the sidecar means reading every byte through a buffer, so with sidecars on
+     * an upload cannot use the zero-copy {@link java.nio.channels.FileChannel#transferTo}
+     * path; turning them off restores it, and {@link ComponentB#verifyChecksum} then cannot
+     * check the objects written.
+     *
+     * @param checksumSidecars True to write checksum sidecars.
+     */
+    public void setChecksumSidecars(boolean checksumSidecars) {
+        this.checksumSidecars = checksumSidecars;
+    }
+
+    /**
+     * Sets whether the checksum sidecar of each uploaded object includes a SHA-256 in
+     * addition to the CRC32C. Off by default.
+     *
+     * @param sha256Checksums True to compute SHA-256 checksums.
+     */
+    public void setSha256Checksums(boolean sha256Checksums) {
+        this.sha256Checksums = sha256Checksums;
+    }
+
     /**
      * Simulates uploading a file to a cloud storage service.
      *
@@ -12,16 +40,116 @@ public class ComponentA {
      * @throws IOException If an I/O error occurs during the upload process.
      */
     public void uploadFile(String sourceFile, String cloudDir) throws IOException {
+        uploadFile(sourceFile, cloudDir, null);
+    }
+
+    /**
+     * Uploads a file to the cloud directory. The object is written under a temporary name
+     * and renamed into place, so readers of the cloud directory never see a partially
+     * uploaded object. Its {@link ChecksumSidecar}, unless turned off with
+     * {@link #setChecksumSidecars}, is computed from the bytes as they are copied and
+     * written once the object is in place.
+     *
+     * @param sourceFile The path to the file to upload.
+     * @param cloudDir   The path to the cloud storage directory; created if missing.
+     * @param listener   Notified as each chunk is uploaded, may be null.
+     * @return The size and throughput of the upload.
+     * @throws IOException If an I/O error occurs during the upload process.
+     */
+    public ChannelTransfer.TransferStats uploadFile(String sourceFile, String cloudDir,
+                                                    ChannelTransfer.ProgressListener listener) throws IOException {
         Path sourcePath = Paths.get(sourceFile);
-        Path cloudPath = Paths.get(cloudDir);
+        return upload(sourcePath, Paths.get(cloudDir).resolve(sourcePath.getFileName()), listener);
+    }
+
+    private ChannelTransfer.TransferStats upload(Path sourcePath, Path targetFile,
+                                                 ChannelTransfer.ProgressListener listener) throws IOException {
+        if (!checksumSidecars) {
+            ChannelTransfer.TransferStats stats =
+                    ChannelTransfer.copy(sourcePath, targetFile, ChannelTransfer.DEFAULT_CHUNK_SIZE, listener);
+            // A sidecar from an earlier upload describes the previous content
+            Files.deleteIfExists(ChecksumSidecar.pathFor(targetFile));
+            return stats;
+        }
+        ChecksumSidecar.Calculator checksums = new ChecksumSidecar.Calculator(sha256Checksums);
+        ChannelTransfer.TransferStats stats =
+                ChannelTransfer.copy(sourcePath, targetFile, ChannelTransfer.DEFAULT_CHUNK_SIZE, checksums, listener);
+        checksums.finish().write(targetFile);
+        return stats;
+    }
 
-        // Create the cloud directory if it doesn't exist
-        if (!Files.exists(cloudPath)) {
-            Files.createDirectories(cloudPath);
+    /**
+     * Uploads a large file as parts of {@link MultipartUpload#DEFAULT_PART_SIZE} bytes sent
+     * concurrently on {@code workers} threads, see {@link MultipartUpload}. If a previous
+     * upload of the same file was interrupted, only its missing or damaged parts are sent.
+     *
+     * @param sourceFile The path to the file to upload.
+     * @param cloudDir   The path to the cloud storage directory; created if missing.
+     * @param workers    The number of parts uploaded concurrently.
+     * @return The number of parts uploaded and reused, and the upload throughput.
+     * @throws IOException If an I/O error occurs; calling this again resumes the upload.
+     */
+    public MultipartUpload.Result uploadFileMultipart(String sourceFile, String cloudDir, int workers)
+            throws IOException {
+        return uploadFileMultipart(sourceFile, cloudDir, MultipartUpload.DEFAULT_PART_SIZE, workers);
+    }
+
+    /**
+     * Uploads a large file as parts of {@code partSize} bytes, see
+     * {@link #uploadFileMultipart(String, String, int)}. A resumed upload must use the same
+     * part size, otherwise it starts over.
+     *
+     * @param sourceFile The path to the file to upload.
+     * @param cloudDir   The path to the cloud storage directory; created if missing.
+     * @param partSize   The bytes per part.
+     * @param workers    The number of parts uploaded concurrently.
+     * @return The number of parts uploaded and reused, and the upload throughput.
+     * @throws IOException If an I/O error occurs; calling this again resumes the upload.
+     */
+    public MultipartUpload.Result uploadFileMultipart(String sourceFile, String cloudDir, int partSize, int workers)
+            throws IOException {
+        return new MultipartUpload(Paths.get(sourceFile), Paths.get(cloudDir), partSize, checksumSidecars,
+                sha256Checksums).run(workers);
+    }
+
+    /**
+     * Uploads many files to the cloud directory concurrently, see {@link BulkTransfer}.
+     *
+     * @param sourceFiles The paths of the files to upload.
+     * @param cloudDir    The path to the cloud storage directory; created if missing.
+     * @param workers     The number of files uploaded concurrently.
+     * @param listener    Notified from the worker threads as each file completes, may be null.
+     * @return The outcome of every file, and the totals; failed files do not stop the others.
+     * @throws IOException If the cloud directory cannot be created.
+     */
+    public BulkTransfer.Report uploadAll(List<String> sourceFiles, String cloudDir, int workers,
+                                         BulkTransfer.ProgressListener listener) throws IOException {
+        List<Path> sources = new ArrayList<>(sourceFiles.size());
+        for (String sourceFile : sourceFiles) {
+            sources.add(Paths.get(sourceFile));
         }
+        return BulkTransfer.transferAll(sources, Paths.get(cloudDir), workers,
+                (source, target) -> upload(source, target, null), listener);
+    }
 
-        // Copy the file to the cloud directory
-        Path targetFile = cloudPath.resolve(sourcePath.getFileName());
-        Files.copy(sourcePath, targetFile, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Uploads every regular file in {@code sourceDir} whose name matches {@code glob},
+     * such as {@code *.log}, to the cloud directory concurrently. The directory is listed
+     * lazily while the uploads run.
+     *
+     * @param sourceDir The directory holding the files to upload.
+     * @param glob      The file name pattern.
+     * @param cloudDir  The path to the cloud storage directory; created if missing.
+     * @param workers   The number of files uploaded concurrently.
+     * @param listener  Notified from the worker threads as each file completes, may be null.
+     * @return The outcome of every file, and the totals; failed files do not stop the others.
+     * @throws IOException If the source directory cannot be listed or the cloud directory cannot be created.
+     */
+    public BulkTransfer.Report uploadAll(String sourceDir, String glob, String cloudDir, int workers,
+                                         BulkTransfer.ProgressListener listener) throws IOException {
+        try (DirectoryStream<Path> sources = BulkTransfer.listFiles(Paths.get(sourceDir), glob)) {
+            return BulkTransfer.transferAll(sources, Paths.get(cloudDir), workers,
+                (source, target) -> upload(source, target, null), listener);
+        }
     }
 }
\ No newline at end of file
@@ -1,9 +1,27 @@
 // ComponentB.java
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ComponentB {
 
+    static final long COMPARE_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private DownloadCache downloadCache;
+
+    /**
+     * Serves downloads through a local cache, so objects that have not changed since they
+     * were last downloaded are hard linked instead of copied again.
+     *
+     * @param downloadCache The cache to use, or null to always copy from the cloud directory.
+     */
+    public void setDownloadCache(DownloadCache downloadCache) {
+        this.downloadCache = downloadCache;
+    }
+
     /**
      * Simulates downloading a file from a cloud storage service.
      *
@@ -13,21 +31,84 @@ public class ComponentB {
      * @throws IOException If an I/O error occurs during the download process.
      */
     public void downloadFile(String cloudDir, String fileName, String downloadDir) throws IOException {
-        Path cloudPath = Paths.get(cloudDir, fileName);
-        Path downloadPath = Paths.get(downloadDir);
+        downloadFile(cloudDir, fileName, downloadDir, null);
+    }
+
+    /**
+     * Downloads a file from the cloud directory with a zero-copy channel transfer, or from
+     * the download cache if one is set and holds the current version. The file is written
+     * under a temporary name and renamed into place, so a failed download never leaves a
+     * truncated file behind.
+     *
+     * @param cloudDir    The path to the cloud storage directory.
+     * @param fileName    The name of the file to download.
+     * @param downloadDir The path to the download directory; created if missing.
+     * @param listener    Notified as each chunk is downloaded, may be null.
+     * @return The size and throughput of the download.
+     * @throws IOException If an I/O error occurs during the download process.
+     */
+    public ChannelTransfer.TransferStats downloadFile(String cloudDir, String fileName, String downloadDir,
+                                                      ChannelTransfer.ProgressListener listener) throws IOException {
+        return download(Paths.get(cloudDir, fileName), Paths.get(downloadDir).resolve(fileName), listener);
+    }
+
+    private ChannelTransfer.TransferStats download(Path cloudPath, Path targetFile,
+                                                   ChannelTransfer.ProgressListener listener) throws IOException {
+        DownloadCache cache = downloadCache;
+        if (cache != null) {
+            return cache.fetch(cloudPath, targetFile, listener);
+        }
+        return ChannelTransfer.copy(cloudPath, targetFile, ChannelTransfer.DEFAULT_CHUNK_SIZE, listener);
+    }
 
-        // Create the download directory if it doesn't exist
-        if (!Files.exists(downloadPath)) {
-            Files.createDirectories(downloadPath);
+    /**
+     * Downloads many files from the cloud directory concurrently, see {@link BulkTransfer}.
+     *
+     * @param cloudDir    The path to the cloud storage directory.
+     * @param fileNames   The names of the files to download.
+     * @param downloadDir The path to the download directory; created if missing.
+     * @param workers     The number of files downloaded concurrently.
+     * @param listener    Notified from the worker threads as each file completes, may be null.
+     * @return The outcome of every file, and the totals; failed files do not stop the others.
+     * @throws IOException If the download directory cannot be created.
+     */
+    public BulkTransfer.Report downloadAll(String cloudDir, List<String> fileNames, String downloadDir, int workers,
+                                           BulkTransfer.ProgressListener listener) throws IOException {
+        Path cloudPath = Paths.get(cloudDir);
+        List<Path> sources = new ArrayList<>(fileNames.size());
+        for (String fileName : fileNames) {
+            sources.add(cloudPath.resolve(fileName));
         }
+        return BulkTransfer.transferAll(sources, Paths.get(downloadDir), workers,
+                (source, target) -> download(source, target, null), listener);
+    }
 
-        // Copy the file from the cloud directory to the download directory
-        Path targetFile = downloadPath.resolve(fileName);
-        Files.copy(cloudPath, targetFile, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Downloads every object in the cloud directory whose name matches {@code glob}, such
+     * as {@code *.log}, concurrently. The cloud directory is listed lazily while the
+     * downloads run.
+     *
+     * @param cloudDir    The path to the cloud storage directory.
+     * @param glob        The file name pattern.
+     * @param downloadDir The path to the download directory; created if missing.
+     * @param workers     The number of files downloaded concurrently.
+     * @param listener    Notified from the worker threads as each file completes, may be null.
+     * @return The outcome of every file, and the totals; failed files do not stop the others.
+     * @throws IOException If the cloud directory cannot be listed or the download directory cannot be created.
+     */
+    public BulkTransfer.Report downloadAll(String cloudDir, String glob, String downloadDir, int workers,
+                                           BulkTransfer.ProgressListener listener) throws IOException {
+        try (DirectoryStream<Path> sources = BulkTransfer.listFiles(Paths.get(cloudDir), glob)) {
+            return BulkTransfer.transferAll(sources, Paths.get(downloadDir), workers,
+                (source, target) -> download(source, target, null), listener);
+        }
     }
 
     /**
      * Verifies that the downloaded file content matches the original file content.
+     * The files are compared window by window over memory-mapped buffers, so memory use
+     * stays constant regardless of file size and the comparison stops at the first
+     * differing window.
      *
      * @param originalFile The path to the original file.
      * @param downloadedFile The path to the downloaded file.
@@ -35,8 +116,44 @@ public class ComponentB {
      * @throws IOException If an I/O error occurs during the verification process.
      */
     public boolean verifyDownload(String originalFile, String downloadedFile) throws IOException {
-        byte[] originalContent = Files.readAllBytes(Paths.get(originalFile));
-        byte[] downloadedContent = Files.readAllBytes(Paths.get(downloadedFile));
-        return java.util.Arrays.equals(originalContent, downloadedContent);
+        try (FileChannel original = FileChannel.open(Paths.get(originalFile), StandardOpenOption.READ);
+             FileChannel downloaded = FileChannel.open(Paths.get(downloadedFile), StandardOpenOption.READ)) {
+            long size = original.size();
+            if (size != downloaded.size()) {
+                return false;
+            }
+            for (long position = 0; position < size; position += COMPARE_WINDOW_SIZE) {
+                long length = Math.min(COMPARE_WINDOW_SIZE, size - position);
+                MappedByteBuffer originalWindow = original.map(FileChannel.MapMode.READ_ONLY, position, length);
+                MappedByteBuffer downloadedWindow = downloaded.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (originalWindow.mismatch(downloadedWindow) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Verifies a downloaded file against the checksum sidecar written when the object was
+     * uploaded, without reading the object itself. The file is streamed through a fixed
+     * buffer, and its SHA-256 is computed only if the sidecar has one.
+     *
+     * @param cloudDir       The path to the cloud storage directory.
+     * @param fileName       The name of the downloaded object.
+     * @param downloadedFile The path to the downloaded file.
+     * @return True if the size and checksums match, false otherwise.
+     * @throws IOException If an I/O error occurs, or the object has no current checksum sidecar.
+     */
+    public boolean verifyChecksum(String cloudDir, String fileName, String downloadedFile) throws IOException {
+        ChecksumSidecar expected = ChecksumSidecar.read(Paths.get(cloudDir, fileName));
+        if (expected == null) {
+            throw new NoSuchFileException(fileName, null, "Object has no current checksum sidecar");
+        }
+        Path downloadedPath = Paths.get(downloadedFile);
+        if (Files.size(downloadedPath) != expected.getSize()) {
+            return false;
+        }
+        return expected.matches(ChecksumSidecar.compute(downloadedPath, expected.getSha256() != null));
     }
 }
\ No newline at end of file
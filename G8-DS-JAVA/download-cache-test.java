@@ -0,0 +1,153 @@
+// DownloadCacheTest.java
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DownloadCacheTest {
+
+    private static final int OBJECT_SIZE = 100_000;
+
+    @TempDir
+    Path dir;
+
+    private ComponentA componentA;
+    private ComponentB componentB;
+    private Path cloudDir;
+    private Path cacheDir;
+    private Path downloadDir;
+
+    @BeforeEach
+    public void setUp() {
+        componentA = new ComponentA();
+        componentB = new ComponentB();
+        cloudDir = dir.resolve("cloud_storage");
+        cacheDir = dir.resolve("cache");
+        downloadDir = dir.resolve("downloads");
+    }
+
+    @Test
+    public void testMissThenHit() throws IOException {
+        Path source = upload("a.bin", 1);
+        DownloadCache cache = useCache(10 * OBJECT_SIZE);
+
+        componentB.downloadFile(cloudDir.toString(), "a.bin", downloadDir.toString());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        componentB.downloadFile(cloudDir.toString(), "a.bin", downloadDir.toString());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(OBJECT_SIZE, cache.getBytesSaved());
+        assertEquals(0.5, cache.getHitRate());
+        assertTrue(componentB.verifyDownload(source.toString(), downloadDir.resolve("a.bin").toString()));
+    }
+
+    @Test
+    public void testChangedObjectIsAMiss() throws IOException {
+        Path source = upload("a.bin", 1);
+        DownloadCache cache = useCache(10 * OBJECT_SIZE);
+        componentB.downloadFile(cloudDir.toString(), "a.bin", downloadDir.toString());
+
+        upload("a.bin", 2); // same size, new content
+        componentB.downloadFile(cloudDir.toString(), "a.bin", downloadDir.toString());
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(OBJECT_SIZE, cache.getSizeBytes(), "The stale version must be replaced, not kept");
+        assertTrue(componentB.verifyDownload(source.toString(), downloadDir.resolve("a.bin").toString()));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws IOException {
+        upload("a.bin", 1);
+        upload("b.bin", 2);
+        upload("c.bin", 3);
+        DownloadCache cache = useCache(2 * OBJECT_SIZE + OBJECT_SIZE / 2);
+
+        download("a.bin");
+        download("b.bin");
+        download("a.bin"); // hit; b.bin is now the least recently used
+        download("c.bin");
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2L * OBJECT_SIZE, cache.getSizeBytes());
+
+        download("a.bin");
+        download("c.bin");
+        assertEquals(3, cache.getHitCount());
+        download("b.bin");
+        assertEquals(3, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+        assertTrue(cache.getSizeBytes() <= 2 * OBJECT_SIZE + OBJECT_SIZE / 2);
+    }
+
+    @Test
+    public void testObjectLargerThanCacheIsNotCached() throws IOException {
+        Path source = upload("a.bin", 1);
+        DownloadCache cache = useCache(OBJECT_SIZE - 1);
+
+        download("a.bin");
+        download("a.bin");
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getSizeBytes());
+        assertTrue(componentB.verifyDownload(source.toString(), downloadDir.resolve("a.bin").toString()));
+    }
+
+    @Test
+    public void testReopenedCacheKeepsEntries() throws IOException {
+        upload("a.bin", 1);
+        useCache(10 * OBJECT_SIZE);
+        download("a.bin");
+        Files.write(cacheDir.resolve("notes.txt"), new byte[] {1});
+
+        DownloadCache reopened = useCache(10 * OBJECT_SIZE);
+        assertEquals(OBJECT_SIZE, reopened.getSizeBytes());
+        download("a.bin");
+
+        assertEquals(1, reopened.getHitCount());
+        assertTrue(Files.exists(cacheDir.resolve("notes.txt")), "Foreign files must not be touched");
+    }
+
+    @Test
+    public void testEntryDeletedOutsideTheCacheIsAMiss() throws IOException {
+        Path source = upload("a.bin", 1);
+        DownloadCache cache = useCache(10 * OBJECT_SIZE);
+        download("a.bin");
+        try (var files = Files.list(cacheDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                file.toFile().setWritable(true);
+                Files.delete(file);
+            }
+        }
+
+        download("a.bin");
+
+        assertEquals(2, cache.getMissCount());
+        assertTrue(componentB.verifyDownload(source.toString(), downloadDir.resolve("a.bin").toString()));
+    }
+
+    private DownloadCache useCache(long maxBytes) throws IOException {
+        DownloadCache cache = new DownloadCache(cacheDir, maxBytes);
+        componentB.setDownloadCache(cache);
+        return cache;
+    }
+
+    private Path upload(String name, long seed) throws IOException {
+        byte[] data = new byte[OBJECT_SIZE];
+        new Random(seed).nextBytes(data);
+        Path source = dir.resolve(name);
+        Files.write(source, data);
+        componentA.uploadFile(source.toString(), cloudDir.toString());
+        return source;
+    }
+
+    private void download(String name) throws IOException {
+        componentB.downloadFile(cloudDir.toString(), name, downloadDir.toString());
+    }
+}
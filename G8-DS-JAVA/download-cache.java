@@ -0,0 +1,332 @@
+// DownloadCache.java
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A size-bounded local cache of downloaded objects, evicting the least recently used
+ * object first.
+ * <p>
+ * An object's version is its size and modification time in the cloud directory, plus
+ * its CRC32C when it has a {@link ChecksumSidecar}; checking it costs a stat and a read
+ * of the small sidecar. When the cached copy is current, the download is served by hard
+ * linking it to the target instead of copying the bytes, or by a local copy when the
+ * target is on another file system. Cached files are made read-only so a caller writing
+ * through such a link fails instead of corrupting the cache; a caller that needs to
+ * modify a download should copy it first.
+ * <p>
+ * Cached files are named {@code <object hash>-<size>-<mtime>-<crc32c>}, so the cache is
+ * rebuilt from the directory listing when it is reopened. Files in the directory that do
+ * not follow this naming are never touched.
+ */
+public final class DownloadCache {
+
+    private static final String NO_CHECKSUM = "none";
+    private static final Pattern CACHE_FILE = Pattern.compile("([0-9a-f]{32})-(\\d+--?\\d+-(?:[0-9a-f]+|none))");
+    // Temporary fills (see ChannelTransfer.copy) and pins of cache files left by a crash
+    private static final Pattern TEMP_FILE = Pattern.compile("\\.[0-9a-f]{32}-.*" + Pattern.quote(ChannelTransfer.TEMP_SUFFIX));
+
+    private final Path cacheDir;
+    private final long maxBytes;
+    // Keyed by object hash; access order, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+    private final AtomicLong pins = new AtomicLong();
+
+    /**
+     * Opens a cache directory, creating it if missing and indexing the objects already in it.
+     *
+     * @param cacheDir The directory holding the cached objects; must be on the same file
+     *                 system as the download directories for hard links to be used.
+     * @param maxBytes The maximum total size of the cached objects.
+     * @throws IOException If the directory cannot be created or listed.
+     */
+    public DownloadCache(Path cacheDir, long maxBytes) throws IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.cacheDir = cacheDir;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(cacheDir);
+
+        List<Entry> existing = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)) {
+                    continue;
+                }
+                if (TEMP_FILE.matcher(name).matches()) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                Matcher matcher = CACHE_FILE.matcher(name);
+                if (matcher.matches()) {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    existing.add(new Entry(matcher.group(1), matcher.group(2), file,
+                            attributes.size(), attributes.lastAccessTime().toMillis()));
+                }
+            }
+        }
+        existing.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+        for (Entry entry : existing) {
+            entries.put(entry.key, entry);
+            totalBytes += entry.size;
+        }
+        evict(null);
+    }
+
+    /**
+     * Downloads a cloud object to {@code target}, from the cache when its cached version is
+     * current. A miss copies the object into the cache first, unless it is larger than the
+     * whole cache.
+     *
+     * @param cloudObject The object in the cloud directory.
+     * @param target      The destination; replaced atomically if it exists.
+     * @param listener    Notified as each chunk is copied on a miss, may be null.
+     * @return The size of the object and the time taken.
+     * @throws IOException If an I/O error occurs.
+     */
+    ChannelTransfer.TransferStats fetch(Path cloudObject, Path target, ChannelTransfer.ProgressListener listener)
+            throws IOException {
+        long start = System.nanoTime();
+        BasicFileAttributes attributes = Files.readAttributes(cloudObject, BasicFileAttributes.class);
+        ChecksumSidecar checksums = ChecksumSidecar.read(cloudObject);
+        String key = hash(cloudObject.toAbsolutePath().normalize().toString());
+        String version = attributes.size() + "-" + attributes.lastModifiedTime().toMillis() + "-"
+                + (checksums == null || checksums.getSize() != attributes.size()
+                        ? NO_CHECKSUM : Long.toHexString(checksums.getCrc32c()));
+
+        Entry entry;
+        Path source = null;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && !entry.version.equals(version)) {
+                entry = null;
+            }
+            if (entry != null) {
+                try {
+                    source = linkOrPin(entry.file, target);
+                } catch (NoSuchFileException e) {
+                    // The cached file was removed from outside the cache; forget it and fetch again
+                    drop(entry);
+                    entry = null;
+                }
+            }
+        }
+        if (entry != null) {
+            if (source == null || copyOut(source, entry.file, target, listener)) {
+                hits.incrementAndGet();
+                bytesSaved.addAndGet(entry.size);
+                return new ChannelTransfer.TransferStats(entry.size, System.nanoTime() - start);
+            }
+            synchronized (entries) {
+                drop(entry);
+            }
+        }
+        misses.incrementAndGet();
+        if (attributes.size() > maxBytes) {
+            return ChannelTransfer.copy(cloudObject, target, ChannelTransfer.DEFAULT_CHUNK_SIZE, listener);
+        }
+
+        // Fill outside the lock so a large miss does not block hits on other objects
+        Path file = cacheDir.resolve(key + "-" + version);
+        ChannelTransfer.TransferStats stats =
+                ChannelTransfer.copy(cloudObject, file, ChannelTransfer.DEFAULT_CHUNK_SIZE, listener);
+        file.toFile().setReadOnly();
+        synchronized (entries) {
+            Entry previous = entries.put(key, new Entry(key, version, file, stats.getBytes(), System.currentTimeMillis()));
+            if (previous != null) {
+                totalBytes -= previous.size;
+                if (!previous.file.equals(file)) {
+                    Files.deleteIfExists(previous.file);
+                }
+            }
+            totalBytes += stats.getBytes();
+            evict(key);
+            source = linkOrPin(file, target);
+        }
+        if (source != null && !copyOut(source, file, target, null)) {
+            // Evicted by a concurrent fill before it could be copied
+            ChannelTransfer.copy(cloudObject, target, ChannelTransfer.DEFAULT_CHUNK_SIZE, null);
+        }
+        return new ChannelTransfer.TransferStats(stats.getBytes(), System.nanoTime() - start);
+    }
+
+    /**
+     * Hard links a cache file to {@code target}, or, if that is not possible, pins it for a
+     * copy outside the lock by hard linking it to a private name in the cache directory,
+     * where eviction cannot remove it. Must be called with the lock held.
+     *
+     * @return Null if the target was linked, otherwise the file to copy to the target.
+     * @throws NoSuchFileException If the cache file no longer exists.
+     */
+    private Path linkOrPin(Path file, Path target) throws IOException {
+        if (link(file, target)) {
+            return null;
+        }
+        Path pin = cacheDir.resolve("." + file.getFileName() + "-pin" + pins.incrementAndGet() + ChannelTransfer.TEMP_SUFFIX);
+        try {
+            Files.createLink(pin, file);
+            return pin;
+        } catch (UnsupportedOperationException e) {
+            // No hard links at all: copy the cache file itself and accept that it may be evicted first
+            return file;
+        }
+    }
+
+    /**
+     * Copies a file returned by {@link #linkOrPin} to {@code target} and removes the pin.
+     *
+     * @return False if {@code source} was the unpinned cache file and it was evicted first.
+     */
+    private static boolean copyOut(Path source, Path cached, Path target, ChannelTransfer.ProgressListener listener)
+            throws IOException {
+        boolean pinned = !source.equals(cached);
+        try {
+            ChannelTransfer.copy(source, target, ChannelTransfer.DEFAULT_CHUNK_SIZE, listener);
+            return true;
+        } catch (NoSuchFileException e) {
+            if (pinned) {
+                throw e;
+            }
+            return false;
+        } finally {
+            if (pinned) {
+                Files.deleteIfExists(source);
+            }
+        }
+    }
+
+    /**
+     * Hard links {@code file} to {@code target} through a temporary name, so an existing
+     * target is replaced atomically.
+     *
+     * @return False if the file system cannot link them, for example across devices.
+     * @throws NoSuchFileException If {@code file} does not exist.
+     */
+    private static boolean link(Path file, Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = directory.resolve("." + target.getFileName() + "." + System.nanoTime() + ChannelTransfer.TEMP_SUFFIX);
+        try {
+            Files.createLink(temp, file);
+        } catch (NoSuchFileException | FileAlreadyExistsException e) {
+            throw e;
+        } catch (FileSystemException | UnsupportedOperationException e) {
+            // Cross-device (EXDEV) or a file system without hard links (EPERM)
+            return false;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return true;
+    }
+
+    /** Removes an entry whose file is gone, if it is still indexed. Must be called with the lock held. */
+    private void drop(Entry entry) {
+        if (entries.remove(entry.key, entry)) {
+            totalBytes -= entry.size;
+        }
+    }
+
+    /** Evicts least recently used entries, other than {@code keep}, until the cache fits. */
+    private void evict(String keep) throws IOException {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.key.equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= entry.size;
+            evictions.incrementAndGet();
+            // Downloads already linked to the file keep their copy of the data
+            Files.deleteIfExists(entry.file);
+        }
+    }
+
+    private static String hash(String name) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(name.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long getSizeBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /** Hits divided by lookups, 0 before the first lookup. */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /** Bytes served from the cache instead of being copied from the cloud directory. */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private static final class Entry {
+
+        final String key;
+        final String version;
+        final Path file;
+        final long size;
+        final long lastUsed;
+
+        Entry(String key, String version, Path file, long size, long lastUsed) {
+            this.key = key;
+            this.version = version;
+            this.file = file;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+// MultipartUploadTest.java
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultipartUploadTest {
+
+    private static final int PART_SIZE = 64 * 1024;
+    private static final int PARTS = 10;
+    private static final String FILE_NAME = "large.bin";
+
+    @TempDir
+    Path dir;
+
+    private ComponentA componentA;
+    private ComponentB componentB;
+    private Path source;
+    private Path cloudDir;
+    private Path object;
+    private Path staging;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        componentA = new ComponentA();
+        componentB = new ComponentB();
+        source = dir.resolve(FILE_NAME);
+        cloudDir = dir.resolve("cloud_storage");
+        object = cloudDir.resolve(FILE_NAME);
+        staging = cloudDir.resolve(MultipartUpload.STAGING_DIR).resolve(FILE_NAME);
+        writeSource(1);
+    }
+
+    @Test
+    public void testUpload() throws IOException {
+        MultipartUpload.Result result = componentA.uploadFileMultipart(source.toString(), cloudDir.toString(), PART_SIZE, 4);
+
+        assertEquals(PARTS, result.getParts());
+        assertEquals(PARTS, result.getPartsUploaded());
+        assertEquals(0, result.getPartsReused());
+        assertEquals(Files.size(source), result.getBytesUploaded());
+        assertTrue(componentB.verifyDownload(source.toString(), object.toString()));
+        assertTrue(componentB.verifyChecksum(cloudDir.toString(), FILE_NAME, source.toString()));
+        assertFalse(Files.exists(staging), "Staging directory must be removed after assembly");
+    }
+
+    @Test
+    public void testResumeReusesStagedParts() throws IOException {
+        interruptBeforeAssembly();
+        assertTrue(Files.exists(staging.resolve("part-00009")));
+
+        MultipartUpload.Result result = componentA.uploadFileMultipart(source.toString(), cloudDir.toString(), PART_SIZE, 4);
+
+        assertEquals(0, result.getPartsUploaded());
+        assertEquals(PARTS, result.getPartsReused());
+        assertEquals(0, result.getBytesUploaded());
+        assertTrue(componentB.verifyDownload(source.toString(), object.toString()));
+    }
+
+    @Test
+    public void testResumeReplacesMissingAndDamagedParts() throws IOException {
+        interruptBeforeAssembly();
+        Files.delete(staging.resolve("part-00002"));
+        byte[] damaged = Files.readAllBytes(staging.resolve("part-00005"));
+        damaged[100] ^= 1;
+        Files.write(staging.resolve("part-00005"), damaged);
+
+        MultipartUpload.Result result = componentA.uploadFileMultipart(source.toString(), cloudDir.toString(), PART_SIZE, 3);
+
+        assertEquals(2, result.getPartsUploaded());
+        assertEquals(PARTS - 2, result.getPartsReused());
+        assertEquals(2L * PART_SIZE, result.getBytesUploaded());
+        assertTrue(componentB.verifyDownload(source.toString(), object.toString()));
+        assertTrue(componentB.verifyChecksum(cloudDir.toString(), FILE_NAME, source.toString()));
+    }
+
+    @Test
+    public void testChangedSourceDiscardsStagedParts() throws IOException {
+        interruptBeforeAssembly();
+        writeSource(2);
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 1000));
+
+        MultipartUpload.Result result = componentA.uploadFileMultipart(source.toString(), cloudDir.toString(), PART_SIZE, 4);
+
+        assertEquals(PARTS, result.getPartsUploaded());
+        assertEquals(0, result.getPartsReused());
+        assertTrue(componentB.verifyDownload(source.toString(), object.toString()));
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        Files.write(source, new byte[0]);
+
+        MultipartUpload.Result result = componentA.uploadFileMultipart(source.toString(), cloudDir.toString(), PART_SIZE, 2);
+
+        assertEquals(1, result.getParts());
+        assertEquals(0, Files.size(object));
+    }
+
+    /**
+     * Runs an upload that stages every part but fails to assemble them, because a
+     * non-empty directory is in the way of the object.
+     */
+    private void interruptBeforeAssembly() throws IOException {
+        Files.createDirectories(object);
+        Files.write(object.resolve("blocker"), new byte[1]);
+        assertThrows(IOException.class,
+                () -> componentA.uploadFileMultipart(source.toString(), cloudDir.toString(), PART_SIZE, 4));
+        Files.delete(object.resolve("blocker"));
+        Files.delete(object);
+    }
+
+    private void writeSource(long seed) throws IOException {
+        byte[] data = new byte[PARTS * PART_SIZE - 1000];
+        new Random(seed).nextBytes(data);
+        Files.write(source, data);
+    }
+}
@@ -0,0 +1,351 @@
+// MultipartUpload.java
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Resumable multipart upload of one file into the cloud directory.
+ * <p>
+ * The source is split into fixed-size parts that are uploaded in parallel into a staging
+ * directory, {@code <cloudDir>/.uploads/<name>/}. Each finished part is recorded with its
+ * length and CRC32C in an append-only part manifest. Once every part is present the parts
+ * are concatenated into a temporary file that is renamed over {@code <cloudDir>/<name>}, its
+ * {@link ChecksumSidecar} is written from the same pass (or, without a sidecar, the parts are
+ * concatenated with zero-copy transfers), and the staging directory is removed.
+ * <p>
+ * If an upload is interrupted, running it again re-checks the recorded parts against their
+ * checksums and uploads only the parts that are missing or damaged. The staging directory
+ * is discarded if the source's size or modification time, or the part size, has changed.
+ */
+public final class MultipartUpload {
+
+    public static final int DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+
+    static final String STAGING_DIR = ".uploads";
+
+    private static final String MANIFEST_NAME = "parts.manifest";
+    private static final String HEADER = "G8-MULTIPART 1";
+
+    private final Path source;
+    private final Path target;
+    private final Path staging;
+    private final int partSize;
+    private final boolean sidecar;
+    private final boolean sha256;
+
+    /**
+     * @param source   The file to upload.
+     * @param cloudDir The cloud directory; the object is stored under the source's file name.
+     * @param partSize The bytes per part.
+     * @param sidecar  Whether to write a checksum sidecar for the object.
+     * @param sha256   Whether the object's checksum sidecar includes a SHA-256.
+     */
+    MultipartUpload(Path source, Path cloudDir, int partSize, boolean sidecar, boolean sha256) {
+        if (partSize <= 0) {
+            throw new IllegalArgumentException("Part size must be positive");
+        }
+        String name = source.getFileName().toString();
+        this.source = source;
+        this.target = cloudDir.resolve(name);
+        this.staging = cloudDir.resolve(STAGING_DIR).resolve(name);
+        this.partSize = partSize;
+        this.sidecar = sidecar;
+        this.sha256 = sha256;
+    }
+
+    /**
+     * Uploads the parts not yet in the staging directory on {@code workers} threads, then
+     * assembles the object.
+     *
+     * @param workers The number of parts uploaded concurrently.
+     * @return Counts of uploaded and reused parts.
+     * @throws IOException If an I/O error occurs; the parts uploaded so far are kept for the next attempt.
+     */
+    Result run(int workers) throws IOException {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        long start = System.nanoTime();
+        long size = Files.size(source);
+        long modifiedTime = Files.getLastModifiedTime(source).toMillis();
+        int parts = (int) Math.max(1, (size + partSize - 1) / partSize);
+
+        String identity = "S\t" + size + "\t" + modifiedTime + "\t" + partSize;
+        Map<Integer, Long> recorded = loadManifest(identity);
+        AtomicInteger reused = new AtomicInteger();
+        AtomicLong bytesUploaded = new AtomicLong();
+
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel manifest = FileChannel.open(staging.resolve(MANIFEST_NAME),
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            if (recorded.isEmpty()) {
+                manifest.truncate(0);
+                appendLine(manifest, HEADER + "\n" + identity);
+            }
+            AtomicInteger next = new AtomicInteger();
+            runParallel(Math.min(workers, parts), next, parts, () -> {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(partSize);
+                CRC32C crc = new CRC32C();
+                for (int index = next.getAndIncrement(); index < parts; index = next.getAndIncrement()) {
+                    long offset = (long) index * partSize;
+                    int length = (int) Math.min(partSize, size - offset);
+                    Long checksum = recorded.get(index);
+                    if (checksum != null && checksum == partChecksum(index, length, buffer, crc)) {
+                        reused.incrementAndGet();
+                        continue;
+                    }
+                    long value = uploadPart(in, index, offset, length, buffer, crc);
+                    appendLine(manifest, "P\t" + index + "\t" + length + "\t" + Long.toHexString(value));
+                    bytesUploaded.addAndGet(length);
+                }
+            });
+        }
+
+        assemble(parts);
+        deleteStaging();
+        return new Result(parts, parts - reused.get(), reused.get(), bytesUploaded.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * Reads the part manifest, returning the CRC32C of every recorded part. Returns an empty
+     * map, after clearing out stale parts, if there is no manifest or it belongs to a
+     * different version of the source.
+     */
+    private Map<Integer, Long> loadManifest(String identity) throws IOException {
+        Map<Integer, Long> recorded = new HashMap<>();
+        Path file = staging.resolve(MANIFEST_NAME);
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                if (HEADER.equals(reader.readLine()) && identity.equals(reader.readLine())) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] fields = line.split("\t");
+                        // A line torn by a crash mid-append is ignored; its part is simply re-uploaded
+                        if (fields.length == 4 && fields[0].equals("P")) {
+                            try {
+                                recorded.put(Integer.parseInt(fields[1]), Long.parseUnsignedLong(fields[3], 16));
+                            } catch (NumberFormatException e) {
+                                // fall through to re-upload
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        if (recorded.isEmpty()) {
+            deleteStaging();
+        }
+        Files.createDirectories(staging);
+        return recorded;
+    }
+
+    private long uploadPart(FileChannel in, int index, long offset, int length, ByteBuffer buffer, CRC32C crc)
+            throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Source was truncated during upload at byte " + (offset + buffer.position()));
+            }
+        }
+        buffer.flip();
+        crc.reset();
+        crc.update(buffer);
+        buffer.flip();
+
+        Path part = partPath(index);
+        Path temp = part.resolveSibling(part.getFileName() + ChannelTransfer.TEMP_SUFFIX);
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        }
+        Files.move(temp, part, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return crc.getValue();
+    }
+
+    /** The CRC32C of a staged part, or -1 if it is missing or has the wrong length. */
+    private long partChecksum(int index, int length, ByteBuffer buffer, CRC32C crc) throws IOException {
+        try (FileChannel part = FileChannel.open(partPath(index), StandardOpenOption.READ)) {
+            if (part.size() != length) {
+                return -1;
+            }
+            buffer.clear().limit(length);
+            while (buffer.hasRemaining()) {
+                if (part.read(buffer) < 0) {
+                    return -1;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+        buffer.flip();
+        crc.reset();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    private void assemble(int parts) throws IOException {
+        ChecksumSidecar.Calculator checksums = sidecar ? new ChecksumSidecar.Calculator(sha256) : null;
+        Path temp = ChannelTransfer.createTempFile(target.getParent(), target.getFileName().toString());
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                for (int index = 0; index < parts; index++) {
+                    try (FileChannel part = FileChannel.open(partPath(index), StandardOpenOption.READ)) {
+                        ChannelTransfer.transfer(part, out, partSize, checksums, null);
+                    }
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (checksums != null) {
+            checksums.finish().write(target);
+        } else {
+            Files.deleteIfExists(ChecksumSidecar.pathFor(target));
+        }
+    }
+
+    private void deleteStaging() throws IOException {
+        if (!Files.exists(staging)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(staging)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+        try {
+            Files.deleteIfExists(staging.getParent());
+        } catch (DirectoryNotEmptyException e) {
+            // another upload is still staging parts
+        }
+    }
+
+    private Path partPath(int index) {
+        return staging.resolve(String.format("part-%05d", index));
+    }
+
+    private static void appendLine(FileChannel manifest, String line) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        // One write per line under the lock, so concurrent parts never interleave their records
+        synchronized (manifest) {
+            while (bytes.hasRemaining()) {
+                manifest.write(bytes);
+            }
+        }
+    }
+
+    private static void runParallel(int workers, AtomicInteger next, int parts, PartWorker worker)
+            throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(pool.submit(() -> {
+                    try {
+                        worker.run();
+                    } catch (IOException | RuntimeException e) {
+                        // Stop handing out parts; those already staged are kept for the retry
+                        next.set(parts);
+                        throw e;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Multipart upload interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private interface PartWorker {
+
+        void run() throws IOException;
+    }
+
+    /**
+     * Outcome of a completed multipart upload.
+     */
+    public static final class Result {
+
+        private final int parts;
+        private final int partsUploaded;
+        private final int partsReused;
+        private final long bytesUploaded;
+        private final long elapsedNanos;
+
+        Result(int parts, int partsUploaded, int partsReused, long bytesUploaded, long elapsedNanos) {
+            this.parts = parts;
+            this.partsUploaded = partsUploaded;
+            this.partsReused = partsReused;
+            this.bytesUploaded = bytesUploaded;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getParts() {
+            return parts;
+        }
+
+        /** Parts sent by this run. */
+        public int getPartsUploaded() {
+            return partsUploaded;
+        }
+
+        /** Parts left by an earlier, interrupted run that passed their checksum. */
+        public int getPartsReused() {
+            return partsReused;
+        }
+
+        public long getBytesUploaded() {
+            return bytesUploaded;
+        }
+
+        public long getElapsed(TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public double getMegabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytesUploaded * 1e9 / elapsedNanos / (1024 * 1024);
+        }
+    }
+}